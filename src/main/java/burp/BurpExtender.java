@@ -1,19 +1,47 @@
 package burp;
 
+import burp.config.ActiveRequestScheduler;
 import burp.config.ExecutorServiceManager;
 import burp.config.ExtensionConfig;
+import burp.core.EndpointInventory;
+import burp.core.MapProbeCache;
+import burp.core.PassiveScanDispatcher;
+import burp.core.SourceMapRegistry;
 import burp.core.TaskRepository;
 import burp.core.ScannerBuilder;
+import burp.core.ScopeDomains;
+import burp.utils.AsyncFileWriter;
+import burp.utils.NPMNameIndex;
+import burp.utils.NPMRegistry;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+import static burp.utils.Constants.SETTING_ARCHIVE_RECONSTRUCTED_SOURCES;
+import static burp.utils.Constants.SETTING_ARCHIVE_STATIC_FILES;
 import static burp.utils.Constants.SETTING_BURP_PASSIVE;
+import static burp.utils.Constants.SETTING_IO_THREAD_POOL_SIZE;
+import static burp.utils.Constants.SETTING_MAP_PROBE_CACHE;
+import static burp.utils.Constants.SETTING_MAP_PROBE_CACHE_TTL;
+import static burp.utils.Constants.SETTING_MAX_IN_FLIGHT_REQUESTS;
+import static burp.utils.Constants.SETTING_NPM_NAME_INDEX_PATH;
+import static burp.utils.Constants.SETTING_NPM_REGISTRY_URL;
+import static burp.utils.Constants.SETTING_OFFLINE_DEPENDENCY_CONFUSION;
+import static burp.utils.Constants.SETTING_PERSIST_MAP_PROBE_CACHE;
+import static burp.utils.Constants.SETTING_REQUESTS_PER_SECOND_PER_HOST;
+import static burp.utils.Constants.SETTING_SAVE_RECONSTRUCTED_SOURCES;
+import static burp.utils.Constants.SETTING_SCAN_RECONSTRUCTED_SOURCES;
+import static burp.utils.Constants.SETTING_THREAD_POOL_SIZE;
 import static burp.utils.Constants.SETTING_VERBOSE_LOGGING;
 
 public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtensionStateListener, IScannerCheck {
@@ -22,6 +50,12 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
     private static final ExecutorServiceManager executorServiceManager = ExecutorServiceManager.getInstance();
     private static final TaskRepository taskRepository = TaskRepository.getInstance();
     private static final ExtensionConfig extensionConfig = ExtensionConfig.getInstance();
+    private static final MapProbeCache mapProbeCache = MapProbeCache.getInstance();
+    private static final SourceMapRegistry sourceMapRegistry = SourceMapRegistry.getInstance();
+    private static final ActiveRequestScheduler activeRequestScheduler = ActiveRequestScheduler.getInstance();
+    private static final ScopeDomains scopeDomains = ScopeDomains.getInstance();
+    private static final EndpointInventory endpointInventory = EndpointInventory.getInstance();
+    private static final PassiveScanDispatcher passiveScanDispatcher = PassiveScanDispatcher.getInstance();
     private static boolean loaded = true;
     public static PrintWriter mStdOut;
     public static PrintWriter mStdErr;
@@ -58,6 +92,26 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
         return extensionConfig;
     }
 
+    public static MapProbeCache getMapProbeCache() {
+        return mapProbeCache;
+    }
+
+    public static EndpointInventory getEndpointInventory() {
+        return endpointInventory;
+    }
+
+    public static ScopeDomains getScopeDomains() {
+        return scopeDomains;
+    }
+
+    public static SourceMapRegistry getSourceMapRegistry() {
+        return sourceMapRegistry;
+    }
+
+    public static ActiveRequestScheduler getActiveRequestScheduler() {
+        return activeRequestScheduler;
+    }
+
 
 
     @Override
@@ -82,12 +136,36 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         // Load extension configurations
         loadExtensionConfig();
+        activeRequestScheduler.updateLimits();
+        executorServiceManager.updatePoolSizes();
+
+        // Load source map probe results saved by a previous session
+        if (extensionConfig.isPersistMapProbeCache() && callbacks.loadExtensionSetting(SETTING_MAP_PROBE_CACHE) != null) {
+            mapProbeCache.loadJson(callbacks.loadExtensionSetting(SETTING_MAP_PROBE_CACHE));
+        }
+
+        // In-scope root domains for the subdomains scanner (kept up to date on scope changes)
+        callbacks.registerScopeChangeListener(scopeDomains);
+        executorServiceManager.getExecutorService(ExecutorServiceManager.Pool.IO).submit(scopeDomains::init);
 
     }
 
     private void updateExtensionConfig() {
         callbacks.saveExtensionSetting(SETTING_VERBOSE_LOGGING, String.valueOf(extensionConfig.isVerboseLogging()));
         callbacks.saveExtensionSetting(SETTING_BURP_PASSIVE, String.valueOf(extensionConfig.isPassiveEnabled()));
+        callbacks.saveExtensionSetting(SETTING_NPM_REGISTRY_URL, extensionConfig.getNpmRegistryURL());
+        callbacks.saveExtensionSetting(SETTING_OFFLINE_DEPENDENCY_CONFUSION, String.valueOf(extensionConfig.isOfflineDependencyConfusion()));
+        callbacks.saveExtensionSetting(SETTING_NPM_NAME_INDEX_PATH, extensionConfig.getNpmNameIndexPath());
+        callbacks.saveExtensionSetting(SETTING_MAP_PROBE_CACHE_TTL, String.valueOf(extensionConfig.getMapProbeCacheTTLHours()));
+        callbacks.saveExtensionSetting(SETTING_PERSIST_MAP_PROBE_CACHE, String.valueOf(extensionConfig.isPersistMapProbeCache()));
+        callbacks.saveExtensionSetting(SETTING_REQUESTS_PER_SECOND_PER_HOST, String.valueOf(extensionConfig.getRequestsPerSecondPerHost()));
+        callbacks.saveExtensionSetting(SETTING_MAX_IN_FLIGHT_REQUESTS, String.valueOf(extensionConfig.getMaxInFlightRequests()));
+        callbacks.saveExtensionSetting(SETTING_THREAD_POOL_SIZE, String.valueOf(extensionConfig.getThreadPoolSize()));
+        callbacks.saveExtensionSetting(SETTING_IO_THREAD_POOL_SIZE, String.valueOf(extensionConfig.getIoThreadPoolSize()));
+        callbacks.saveExtensionSetting(SETTING_SCAN_RECONSTRUCTED_SOURCES, String.valueOf(extensionConfig.isScanReconstructedSources()));
+        callbacks.saveExtensionSetting(SETTING_SAVE_RECONSTRUCTED_SOURCES, String.valueOf(extensionConfig.isSaveReconstructedSources()));
+        callbacks.saveExtensionSetting(SETTING_ARCHIVE_STATIC_FILES, String.valueOf(extensionConfig.isArchiveStaticFiles()));
+        callbacks.saveExtensionSetting(SETTING_ARCHIVE_RECONSTRUCTED_SOURCES, String.valueOf(extensionConfig.isArchiveReconstructedSources()));
     }
 
     public void loadExtensionConfig() {
@@ -99,6 +177,68 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
             extensionConfig.setPassiveEnabled(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_BURP_PASSIVE)));
         }
 
+        if (callbacks.loadExtensionSetting(SETTING_NPM_REGISTRY_URL) != null) {
+            extensionConfig.setNpmRegistryURL(callbacks.loadExtensionSetting(SETTING_NPM_REGISTRY_URL));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_OFFLINE_DEPENDENCY_CONFUSION) != null) {
+            extensionConfig.setOfflineDependencyConfusion(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_OFFLINE_DEPENDENCY_CONFUSION)));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_NPM_NAME_INDEX_PATH) != null) {
+            extensionConfig.setNpmNameIndexPath(callbacks.loadExtensionSetting(SETTING_NPM_NAME_INDEX_PATH));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_MAP_PROBE_CACHE_TTL) != null) {
+            try {
+                extensionConfig.setMapProbeCacheTTLHours(Integer.parseInt(callbacks.loadExtensionSetting(SETTING_MAP_PROBE_CACHE_TTL)));
+            } catch (NumberFormatException e) {
+                mStdErr.println("[-] Invalid source map probe cache TTL setting.");
+            }
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_PERSIST_MAP_PROBE_CACHE) != null) {
+            extensionConfig.setPersistMapProbeCache(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_PERSIST_MAP_PROBE_CACHE)));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_SCAN_RECONSTRUCTED_SOURCES) != null) {
+            extensionConfig.setScanReconstructedSources(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_SCAN_RECONSTRUCTED_SOURCES)));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_SAVE_RECONSTRUCTED_SOURCES) != null) {
+            extensionConfig.setSaveReconstructedSources(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_SAVE_RECONSTRUCTED_SOURCES)));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_ARCHIVE_STATIC_FILES) != null) {
+            extensionConfig.setArchiveStaticFiles(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_ARCHIVE_STATIC_FILES)));
+        }
+
+        if (callbacks.loadExtensionSetting(SETTING_ARCHIVE_RECONSTRUCTED_SOURCES) != null) {
+            extensionConfig.setArchiveReconstructedSources(Boolean.parseBoolean(callbacks.loadExtensionSetting(SETTING_ARCHIVE_RECONSTRUCTED_SOURCES)));
+        }
+
+        try {
+            if (callbacks.loadExtensionSetting(SETTING_REQUESTS_PER_SECOND_PER_HOST) != null) {
+                extensionConfig.setRequestsPerSecondPerHost(Double.parseDouble(callbacks.loadExtensionSetting(SETTING_REQUESTS_PER_SECOND_PER_HOST)));
+            }
+            if (callbacks.loadExtensionSetting(SETTING_MAX_IN_FLIGHT_REQUESTS) != null) {
+                extensionConfig.setMaxInFlightRequests(Integer.parseInt(callbacks.loadExtensionSetting(SETTING_MAX_IN_FLIGHT_REQUESTS)));
+            }
+        } catch (NumberFormatException e) {
+            mStdErr.println("[-] Invalid active request limits setting.");
+        }
+
+        try {
+            if (callbacks.loadExtensionSetting(SETTING_THREAD_POOL_SIZE) != null) {
+                extensionConfig.setThreadPoolSize(Integer.parseInt(callbacks.loadExtensionSetting(SETTING_THREAD_POOL_SIZE)));
+            }
+            if (callbacks.loadExtensionSetting(SETTING_IO_THREAD_POOL_SIZE) != null) {
+                extensionConfig.setIoThreadPoolSize(Integer.parseInt(callbacks.loadExtensionSetting(SETTING_IO_THREAD_POOL_SIZE)));
+            }
+        } catch (NumberFormatException e) {
+            mStdErr.println("[-] Invalid thread pool size settings.");
+        }
+
     }
 
 
@@ -106,8 +246,13 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
     public void extensionUnloaded() {
         setLoaded(false);
         taskRepository.destroy();
+        callbacks.removeScopeChangeListener(scopeDomains);
+        // Save source map probe results for the next session (or drop previously saved ones)
+        callbacks.saveExtensionSetting(SETTING_MAP_PROBE_CACHE, extensionConfig.isPersistMapProbeCache() ? mapProbeCache.toJson() : null);
         mStdOut.println("[*] Sending shutdown signal to terminate any running threads..");
-        executorServiceManager.getExecutorService().shutdownNow();
+        passiveScanDispatcher.shutdown();
+        executorServiceManager.shutdownNow();
+        AsyncFileWriter.getInstance().shutdown();
         mStdOut.println("[*] Extension was unloaded.");
         mStdOut.println("=================================================");
     }
@@ -195,6 +340,21 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
             runningMenuItem.addActionListener(runningTasksMenuItemActions);
             logItems.add(runningMenuItem);
 
+            JMenuItem exportOpenApiMenuItem = new JMenuItem("Export API endpoints inventory (OpenAPI)");
+            ExportEndpointInventoryMenuItemActions exportOpenApiMenuItemActions = new ExportEndpointInventoryMenuItemActions(true);
+            exportOpenApiMenuItem.addActionListener(exportOpenApiMenuItemActions);
+            logItems.add(exportOpenApiMenuItem);
+
+            JMenuItem exportJsonMenuItem = new JMenuItem("Export API endpoints inventory (JSON)");
+            ExportEndpointInventoryMenuItemActions exportJsonMenuItemActions = new ExportEndpointInventoryMenuItemActions(false);
+            exportJsonMenuItem.addActionListener(exportJsonMenuItemActions);
+            logItems.add(exportJsonMenuItem);
+
+            JMenuItem clearEndpointInventoryMenuItem = new JMenuItem("Clear API endpoints inventory");
+            ClearEndpointInventoryMenuItemActions clearEndpointInventoryMenuItemActions = new ClearEndpointInventoryMenuItemActions();
+            clearEndpointInventoryMenuItem.addActionListener(clearEndpointInventoryMenuItemActions);
+            logItems.add(clearEndpointInventoryMenuItem);
+
             // === Configuration Menu Items ==== //
             JMenuItem toggleLoggingMenuItem = new JMenuItem(extensionConfig.loggingConfigMenuItemText());
             ToggleLoggingMenuItemActions toggleLoggingMenuItemActions = new ToggleLoggingMenuItemActions();
@@ -206,6 +366,66 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
             toggleBurpPassiveScanMenuItem.addActionListener(toggleBurpPassiveMenuItemActions);
             configItems.add(toggleBurpPassiveScanMenuItem);
 
+            JMenuItem npmRegistryMenuItem = new JMenuItem("Set NPM registry URL");
+            NpmRegistryMenuItemActions npmRegistryMenuItemActions = new NpmRegistryMenuItemActions();
+            npmRegistryMenuItem.addActionListener(npmRegistryMenuItemActions);
+            configItems.add(npmRegistryMenuItem);
+
+            JMenuItem toggleOfflineModeMenuItem = new JMenuItem(extensionConfig.offlineDependencyConfusionMenuItemText());
+            ToggleOfflineModeMenuItemActions toggleOfflineModeMenuItemActions = new ToggleOfflineModeMenuItemActions();
+            toggleOfflineModeMenuItem.addActionListener(toggleOfflineModeMenuItemActions);
+            configItems.add(toggleOfflineModeMenuItem);
+
+            JMenuItem importNpmNamesMenuItem = new JMenuItem("Import NPM package names dump (offline mode)");
+            ImportNpmNamesMenuItemActions importNpmNamesMenuItemActions = new ImportNpmNamesMenuItemActions();
+            importNpmNamesMenuItem.addActionListener(importNpmNamesMenuItemActions);
+            configItems.add(importNpmNamesMenuItem);
+
+            JMenuItem togglePersistProbeCacheMenuItem = new JMenuItem(extensionConfig.persistMapProbeCacheMenuItemText());
+            TogglePersistProbeCacheMenuItemActions togglePersistProbeCacheMenuItemActions = new TogglePersistProbeCacheMenuItemActions();
+            togglePersistProbeCacheMenuItem.addActionListener(togglePersistProbeCacheMenuItemActions);
+            configItems.add(togglePersistProbeCacheMenuItem);
+
+            JMenuItem probeCacheTTLMenuItem = new JMenuItem("Set source map probe cache TTL");
+            ProbeCacheTTLMenuItemActions probeCacheTTLMenuItemActions = new ProbeCacheTTLMenuItemActions();
+            probeCacheTTLMenuItem.addActionListener(probeCacheTTLMenuItemActions);
+            configItems.add(probeCacheTTLMenuItem);
+
+            JMenuItem clearProbeCacheMenuItem = new JMenuItem("Clear source map probe cache");
+            ClearProbeCacheMenuItemActions clearProbeCacheMenuItemActions = new ClearProbeCacheMenuItemActions();
+            clearProbeCacheMenuItem.addActionListener(clearProbeCacheMenuItemActions);
+            configItems.add(clearProbeCacheMenuItem);
+
+            JMenuItem toggleScanReconstructedSourcesMenuItem = new JMenuItem(extensionConfig.scanReconstructedSourcesMenuItemText());
+            ToggleScanReconstructedSourcesMenuItemActions toggleScanReconstructedSourcesMenuItemActions = new ToggleScanReconstructedSourcesMenuItemActions();
+            toggleScanReconstructedSourcesMenuItem.addActionListener(toggleScanReconstructedSourcesMenuItemActions);
+            configItems.add(toggleScanReconstructedSourcesMenuItem);
+
+            JMenuItem toggleSaveReconstructedSourcesMenuItem = new JMenuItem(extensionConfig.saveReconstructedSourcesMenuItemText());
+            ToggleSaveReconstructedSourcesMenuItemActions toggleSaveReconstructedSourcesMenuItemActions = new ToggleSaveReconstructedSourcesMenuItemActions();
+            toggleSaveReconstructedSourcesMenuItem.addActionListener(toggleSaveReconstructedSourcesMenuItemActions);
+            configItems.add(toggleSaveReconstructedSourcesMenuItem);
+
+            JMenuItem toggleArchiveStaticFilesMenuItem = new JMenuItem(extensionConfig.archiveStaticFilesMenuItemText());
+            ToggleArchiveStaticFilesMenuItemActions toggleArchiveStaticFilesMenuItemActions = new ToggleArchiveStaticFilesMenuItemActions();
+            toggleArchiveStaticFilesMenuItem.addActionListener(toggleArchiveStaticFilesMenuItemActions);
+            configItems.add(toggleArchiveStaticFilesMenuItem);
+
+            JMenuItem toggleArchiveReconstructedSourcesMenuItem = new JMenuItem(extensionConfig.archiveReconstructedSourcesMenuItemText());
+            ToggleArchiveReconstructedSourcesMenuItemActions toggleArchiveReconstructedSourcesMenuItemActions = new ToggleArchiveReconstructedSourcesMenuItemActions();
+            toggleArchiveReconstructedSourcesMenuItem.addActionListener(toggleArchiveReconstructedSourcesMenuItemActions);
+            configItems.add(toggleArchiveReconstructedSourcesMenuItem);
+
+            JMenuItem requestLimitsMenuItem = new JMenuItem("Set active request limits");
+            RequestLimitsMenuItemActions requestLimitsMenuItemActions = new RequestLimitsMenuItemActions();
+            requestLimitsMenuItem.addActionListener(requestLimitsMenuItemActions);
+            configItems.add(requestLimitsMenuItem);
+
+            JMenuItem threadPoolSizeMenuItem = new JMenuItem("Set scanners thread pool sizes");
+            ThreadPoolSizeMenuItemActions threadPoolSizeMenuItemActions = new ThreadPoolSizeMenuItemActions();
+            threadPoolSizeMenuItem.addActionListener(threadPoolSizeMenuItemActions);
+            configItems.add(threadPoolSizeMenuItem);
+
             items.add(configItems);
             items.add(scanItems);
             items.add(logItems);
@@ -225,13 +445,13 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
                         .scanSecrets()
                         .taskId(++taskCount)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -244,13 +464,13 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
                         .scanDependencyConfusion()
                         .taskId(++taskCount)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -263,13 +483,13 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
                         .scanSubDomains()
                         .taskId(++taskCount)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -282,13 +502,13 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
                         .scanCloudURLs()
                         .taskId(++taskCount)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -301,7 +521,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 // We need to use timestamp so all files (of the same host) can go to the same folder
                 long ts = Instant.now().toEpochMilli();
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
@@ -310,7 +530,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
                         .timeStamp(ts)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -323,7 +543,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 // We need to use timestamp so all files can go to the same folder
                 long ts = Instant.now().toEpochMilli();
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
@@ -332,7 +552,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
                         .timeStamp(ts)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -345,7 +565,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 // We need to use timestamp so all files can go to the same folder
                 long ts = Instant.now().toEpochMilli();
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
@@ -354,7 +574,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
                         .timeStamp(ts)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -367,7 +587,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 // We need to use timestamp so all files can go to the same folder
                 long ts = Instant.now().toEpochMilli();
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
@@ -376,7 +596,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
                         .timeStamp(ts)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -389,7 +609,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 // We need to use timestamp so all files can go to the same folder
                 long ts = Instant.now().toEpochMilli();
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
@@ -398,7 +618,7 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
                         .timeStamp(ts)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -411,13 +631,13 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
+            passiveScanDispatcher.dispatchJob(() -> {
                 ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(httpReqResArray)
                         .endpointsFinder()
                         .taskId(++taskCount)
                         .build();
                 scannerBuilder.runScans();
-            }).start();
+            });
         }
     }
 
@@ -431,6 +651,11 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
             mStdOut.println("Completed tasks: " + taskRepository.getCompletedTasks().size());
             mStdOut.println("Running tasks: " + taskRepository.getRunningTasks().size());
             mStdOut.println("Failed tasks: " + taskRepository.getFailedTasks().size());
+            mStdOut.println("Scanner pools: " + executorServiceManager.getPoolMetrics(ExecutorServiceManager.Pool.CPU));
+            mStdOut.println("               " + executorServiceManager.getPoolMetrics(ExecutorServiceManager.Pool.IO));
+            mStdOut.println("Pending passive scans / menu actions: " + passiveScanDispatcher.getPendingItemsCount());
+            mStdOut.println("In-flight HTTP requests: " + activeRequestScheduler.getInFlightRequestsCount());
+            mStdOut.println("API endpoints inventory: " + endpointInventory.getSize());
             mStdOut.println("============================================");
         }
     }
@@ -457,6 +682,40 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
         }
     }
 
+    class ExportEndpointInventoryMenuItemActions implements ActionListener {
+        private final boolean isOpenApi;
+
+        ExportEndpointInventoryMenuItemActions(boolean isOpenApi) {
+            this.isOpenApi = isOpenApi;
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("Export the API endpoints inventory");
+            fileChooser.setSelectedFile(new File(isOpenApi ? "openapi.json" : "endpoints.json"));
+            if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            File exportFile = fileChooser.getSelectedFile();
+            try {
+                String export = isOpenApi ? endpointInventory.toOpenApi() : endpointInventory.toJson();
+                Files.write(exportFile.toPath(), export.getBytes(StandardCharsets.UTF_8));
+                mStdOut.println("[+] Exported " + endpointInventory.getSize() + " API endpoints to: " + exportFile);
+            } catch (IOException ioException) {
+                mStdErr.println("[-] Exporting the API endpoints inventory failed: " + ioException.getMessage());
+            }
+        }
+    }
+
+    class ClearEndpointInventoryMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            mStdOut.println("[*] Cleared " + endpointInventory.getSize() + " API endpoints from the inventory.");
+            endpointInventory.clear();
+        }
+    }
+
     class ToggleLoggingMenuItemActions implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
@@ -473,18 +732,179 @@ public class BurpExtender implements IBurpExtender, IContextMenuFactory, IExtens
         }
     }
 
+    class NpmRegistryMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String registryURL = JOptionPane.showInputDialog(null,
+                    "NPM registry base URL (e.g.: an internal mirror):",
+                    extensionConfig.getNpmRegistryURL());
+            if (registryURL != null && !registryURL.trim().isEmpty()) {
+                extensionConfig.setNpmRegistryURL(registryURL.trim());
+                updateExtensionConfig();
+            }
+        }
+    }
+
+    class ToggleOfflineModeMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            extensionConfig.toggleOfflineDependencyConfusion();
+            updateExtensionConfig();
+        }
+    }
+
+    class ImportNpmNamesMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("Select an NPM package names dump");
+            if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            File dumpFile = fileChooser.getSelectedFile();
+            new Thread(() -> {
+                mStdOut.println("[*] Building the offline NPM names index from: " + dumpFile);
+                try {
+                    int entries = NPMNameIndex.build(dumpFile.toPath(), Paths.get(extensionConfig.getNpmNameIndexPath()));
+                    NPMRegistry.getInstance().reloadNameIndex();
+                    mStdOut.println("[+] Offline NPM names index is ready (" + entries + " entries): " + extensionConfig.getNpmNameIndexPath());
+                } catch (IOException ioException) {
+                    mStdErr.println("[-] Building the offline NPM names index failed: " + ioException.getMessage());
+                }
+            }).start();
+        }
+    }
+
+    class TogglePersistProbeCacheMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            extensionConfig.togglePersistMapProbeCache();
+            updateExtensionConfig();
+        }
+    }
+
+    class ProbeCacheTTLMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String ttlHours = JOptionPane.showInputDialog(null,
+                    "Source map probe cache TTL (hours):",
+                    extensionConfig.getMapProbeCacheTTLHours());
+            if (ttlHours != null) {
+                try {
+                    extensionConfig.setMapProbeCacheTTLHours(Math.max(0, Integer.parseInt(ttlHours.trim())));
+                    updateExtensionConfig();
+                } catch (NumberFormatException numberFormatException) {
+                    mStdErr.println("[-] Invalid TTL: " + ttlHours);
+                }
+            }
+        }
+    }
+
+    class ClearProbeCacheMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            mStdOut.println("[*] Cleared " + mapProbeCache.getSize() + " cached source map probe results.");
+            mapProbeCache.clear();
+        }
+    }
+
+    class ToggleScanReconstructedSourcesMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            extensionConfig.toggleScanReconstructedSources();
+            updateExtensionConfig();
+        }
+    }
+
+    class ToggleSaveReconstructedSourcesMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            extensionConfig.toggleSaveReconstructedSources();
+            updateExtensionConfig();
+        }
+    }
+
+    class ToggleArchiveStaticFilesMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            extensionConfig.toggleArchiveStaticFiles();
+            updateExtensionConfig();
+        }
+    }
+
+    class ToggleArchiveReconstructedSourcesMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            extensionConfig.toggleArchiveReconstructedSources();
+            updateExtensionConfig();
+        }
+    }
+
+    class RequestLimitsMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String requestsPerSecond = JOptionPane.showInputDialog(null,
+                    "Maximum requests per second (per host):",
+                    extensionConfig.getRequestsPerSecondPerHost());
+            if (requestsPerSecond == null) {
+                return;
+            }
+            String maxInFlightRequests = JOptionPane.showInputDialog(null,
+                    "Maximum concurrent (in-flight) requests:",
+                    extensionConfig.getMaxInFlightRequests());
+            if (maxInFlightRequests == null) {
+                return;
+            }
+            try {
+                double newRequestsPerSecond = Double.parseDouble(requestsPerSecond.trim());
+                int newMaxInFlightRequests = Integer.parseInt(maxInFlightRequests.trim());
+                if (newRequestsPerSecond > 0 && newMaxInFlightRequests > 0) {
+                    extensionConfig.setRequestsPerSecondPerHost(newRequestsPerSecond);
+                    extensionConfig.setMaxInFlightRequests(newMaxInFlightRequests);
+                    activeRequestScheduler.updateLimits();
+                    updateExtensionConfig();
+                }
+            } catch (NumberFormatException numberFormatException) {
+                mStdErr.println("[-] Invalid active request limits.");
+            }
+        }
+    }
+
+    class ThreadPoolSizeMenuItemActions implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String threadPoolSize = JOptionPane.showInputDialog(null,
+                    "CPU-bound scans thread pool size (available processors: " + Runtime.getRuntime().availableProcessors() + "):",
+                    extensionConfig.getThreadPoolSize());
+            if (threadPoolSize == null) {
+                return;
+            }
+            String ioThreadPoolSize = JOptionPane.showInputDialog(null,
+                    "I/O-bound tasks thread pool size (source maps, NPM registry, dumps):",
+                    extensionConfig.getIoThreadPoolSize());
+            if (ioThreadPoolSize == null) {
+                return;
+            }
+            try {
+                int newThreadPoolSize = Integer.parseInt(threadPoolSize.trim());
+                int newIoThreadPoolSize = Integer.parseInt(ioThreadPoolSize.trim());
+                if (newThreadPoolSize > 0 && newIoThreadPoolSize > 0) {
+                    extensionConfig.setThreadPoolSize(newThreadPoolSize);
+                    extensionConfig.setIoThreadPoolSize(newIoThreadPoolSize);
+                    executorServiceManager.updatePoolSizes();
+                    updateExtensionConfig();
+                }
+            } catch (NumberFormatException numberFormatException) {
+                mStdErr.println("[-] Invalid thread pool sizes.");
+            }
+        }
+    }
+
     @Override
     public List<IScanIssue> doPassiveScan(IHttpRequestResponse baseRequestResponse) {
         if (extensionConfig.isPassiveEnabled()) {
-            new Thread(() -> {
-                // run passive scans against JS/JSON files
-                long ts = Instant.now().toEpochMilli();
-                ScannerBuilder scannerBuilder = new ScannerBuilder.Builder(new IHttpRequestResponse[]{baseRequestResponse})
-                        .runAllPassiveScans()
-                        .timeStamp(ts)
-                        .build();
-                scannerBuilder.runScans();
-            }).start();
+            // run passive scans against JS/JSON files (in micro-batches)
+            passiveScanDispatcher.dispatch(baseRequestResponse);
         }
         return null;
     }
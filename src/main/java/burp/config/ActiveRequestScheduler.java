@@ -0,0 +1,140 @@
+package burp.config;
+
+import burp.BurpExtender;
+import burp.IHttpRequestResponse;
+import burp.IHttpService;
+import burp.IResponseInfo;
+import burp.utils.RateLimiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared scheduler for all HTTP requests sent by the extension.
+ * It applies a token-bucket rate limit per host, caps the number of in-flight requests,
+ * and retries failed / throttled requests with a jittered exponential backoff.
+ */
+public class ActiveRequestScheduler {
+    private static ActiveRequestScheduler activeRequestScheduler = null;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final ResizableSemaphore inFlightRequests;
+    private final Map<String, RateLimiter> hostRateLimiters = new ConcurrentHashMap<>();
+    private int maxInFlightRequests;
+
+    public static synchronized ActiveRequestScheduler getInstance() {
+        if (activeRequestScheduler == null)
+            activeRequestScheduler = new ActiveRequestScheduler();
+        return activeRequestScheduler;
+    }
+
+    private ActiveRequestScheduler() {
+        maxInFlightRequests = BurpExtender.getExtensionConfig().getMaxInFlightRequests();
+        inFlightRequests = new ResizableSemaphore(maxInFlightRequests);
+    }
+
+    /**
+     * Drop-in replacement for "callbacks.makeHttpRequest". Blocks until the request can be sent.
+     * Returns the last attempt, which may hold a null response if all attempts failed.
+     */
+    public IHttpRequestResponse makeHttpRequest(IHttpService httpService, byte[] request) {
+        IHttpRequestResponse requestResponse = null;
+        try {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS && BurpExtender.isLoaded(); attempt++) {
+                getRateLimiter(httpService).acquire();
+                inFlightRequests.acquire();
+                try {
+                    requestResponse = BurpExtender.getCallbacks().makeHttpRequest(httpService, request);
+                } finally {
+                    inFlightRequests.release();
+                }
+
+                long retryAfterMillis = getRetryDelay(requestResponse);
+                if (retryAfterMillis < 0 || attempt == MAX_ATTEMPTS) {
+                    break;
+                }
+                // The in-flight slot is released while backing off, so other hosts are not held up
+                TimeUnit.MILLISECONDS.sleep(Math.max(retryAfterMillis, backoffWithJitter(attempt)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return requestResponse;
+    }
+
+    /**
+     * Applies the limits set in the extension configuration.
+     */
+    public synchronized void updateLimits() {
+        int newMaxInFlightRequests = BurpExtender.getExtensionConfig().getMaxInFlightRequests();
+        if (newMaxInFlightRequests > maxInFlightRequests) {
+            inFlightRequests.release(newMaxInFlightRequests - maxInFlightRequests);
+        } else if (newMaxInFlightRequests < maxInFlightRequests) {
+            inFlightRequests.reducePermits(maxInFlightRequests - newMaxInFlightRequests);
+        }
+        maxInFlightRequests = newMaxInFlightRequests;
+        // New rate limiters are created lazily with the new rate
+        hostRateLimiters.clear();
+    }
+
+    public int getInFlightRequestsCount() {
+        return maxInFlightRequests - inFlightRequests.availablePermits();
+    }
+
+    private RateLimiter getRateLimiter(IHttpService httpService) {
+        return hostRateLimiters.computeIfAbsent(httpService.getHost().toLowerCase(), host -> {
+            double requestsPerSecond = BurpExtender.getExtensionConfig().getRequestsPerSecondPerHost();
+            return new RateLimiter(requestsPerSecond, Math.max(1, requestsPerSecond));
+        });
+    }
+
+    /*
+     * Returns how long to wait before retrying (using the "Retry-After" header if any), or -1 if no retry is needed.
+     * Requests are retried on connection failures and on "429", "502", "503" and "504" responses.
+     */
+    private static long getRetryDelay(IHttpRequestResponse requestResponse) {
+        if (requestResponse == null || requestResponse.getResponse() == null) {
+            return 0;
+        }
+        IResponseInfo responseInfo = BurpExtender.getHelpers().analyzeResponse(requestResponse.getResponse());
+        short statusCode = responseInfo.getStatusCode();
+        if (statusCode != 429 && statusCode != 502 && statusCode != 503 && statusCode != 504) {
+            return -1;
+        }
+        for (String header : responseInfo.getHeaders()) {
+            if (header.toLowerCase().startsWith("retry-after:")) {
+                try {
+                    long seconds = Long.parseLong(header.substring("retry-after:".length()).trim());
+                    return Math.min(TimeUnit.SECONDS.toMillis(seconds), MAX_BACKOFF_MILLIS);
+                } catch (NumberFormatException e) {
+                    // HTTP-date values are not worth parsing here, fall back to the backoff delay
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // "Full jitter" exponential backoff
+    private static long backoffWithJitter(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    // Exposes "reducePermits" so the in-flight cap can be lowered at runtime
+    private static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -1,11 +1,55 @@
 package burp.config;
 
-import java.util.concurrent.Executors;
+import burp.BurpExtender;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Scanners thread pools, sized from the extension config:
+ * - CPU: the regex / parsing scans (the number of available processors by default)
+ * - IO: the tasks waiting on the network or the disk (source maps, NPM registry, dumps), with a much higher concurrency
+ * so a few hanging requests can not hold back the CPU-bound scans. On Java 21+ runtimes, its workers are virtual threads
+ * (see VirtualThreads), so it can be sized for hundreds of concurrent requests without the cost of platform threads.
+ * The queues are bounded: once a queue is full, submitting threads wait for a free slot (so a large Auto-Mine does not
+ * keep every request/response in memory), except the pools' own threads (e.g.: reconstructed sources scans), which
+ * run the task themselves instead of waiting for a pool that may be waiting on them. A CPU thread never runs an I/O task
+ * (it waits for the I/O queue instead), while I/O threads run CPU tasks: I/O threads never wait on the CPU pool,
+ * so the two pools can not wait on each other.
+ */
 public class ExecutorServiceManager {
     private static ExecutorServiceManager executorServiceManager = null;
-    private final ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(5);
+    private static final int TASK_QUEUE_CAPACITY = 1000;
+    // The pool of the current thread (null for other threads)
+    private static final ThreadLocal<Pool> currentPool = new ThreadLocal<>();
+    private final Map<Pool, ThreadPoolExecutor> executorServices = new EnumMap<>(Pool.class);
+
+    public enum Pool {
+        CPU("JS-Miner-Scanner-", false),
+        IO("JS-Miner-IO-", true);
+
+        private final String threadNamePrefix;
+        private final boolean isBlocking;
+
+        Pool(String threadNamePrefix, boolean isBlocking) {
+            this.threadNamePrefix = threadNamePrefix;
+            this.isBlocking = isBlocking;
+        }
+
+        /**
+         * @return true if the pool's workers are virtual threads (blocking tasks, on a Java 21+ runtime)
+         */
+        public boolean isVirtual() {
+            return isBlocking && VirtualThreads.isSupported();
+        }
+    }
 
     public static ExecutorServiceManager getInstance() {
         if (executorServiceManager == null)
@@ -14,13 +58,111 @@ public class ExecutorServiceManager {
     }
 
     private ExecutorServiceManager() {
+        for (Pool pool : Pool.values()) {
+            int poolSize = getConfiguredPoolSize(ExtensionConfig.getInstance(), pool);
+            executorServices.put(pool, new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(TASK_QUEUE_CAPACITY),
+                    new ScannerThreadFactory(pool),
+                    new BlockingRejectionHandler(pool)));
+        }
     }
 
-    public ThreadPoolExecutor getExecutorService() {
-        return executorService;
+    public ThreadPoolExecutor getExecutorService(Pool pool) {
+        return executorServices.get(pool);
     }
 
+    /**
+     * Applies the pool sizes of the extension config (the running tasks are not interrupted).
+     */
+    public synchronized void updatePoolSizes() {
+        for (Map.Entry<Pool, ThreadPoolExecutor> poolExecutor : executorServices.entrySet()) {
+            int poolSize = Math.max(1, getConfiguredPoolSize(BurpExtender.getExtensionConfig(), poolExecutor.getKey()));
+            ThreadPoolExecutor executorService = poolExecutor.getValue();
+            // The core size can never be larger than the maximum size
+            if (poolSize > executorService.getMaximumPoolSize()) {
+                executorService.setMaximumPoolSize(poolSize);
+                executorService.setCorePoolSize(poolSize);
+            } else {
+                executorService.setCorePoolSize(poolSize);
+                executorService.setMaximumPoolSize(poolSize);
+            }
+        }
+    }
 
-}
+    private static int getConfiguredPoolSize(ExtensionConfig extensionConfig, Pool pool) {
+        return pool == Pool.IO ? extensionConfig.getIoThreadPoolSize() : extensionConfig.getThreadPoolSize();
+    }
+
+    /**
+     * e.g.: "CPU: 3 / 8 busy threads, 12 queued, 1200 completed"
+     */
+    public String getPoolMetrics(Pool pool) {
+        ThreadPoolExecutor executorService = executorServices.get(pool);
+        return pool + ": " + executorService.getActiveCount() + " / " + executorService.getCorePoolSize() + " busy threads, "
+                + executorService.getQueue().size() + " queued, "
+                + executorService.getCompletedTaskCount() + " completed"
+                + (pool.isVirtual() ? " (virtual threads)" : "");
+    }
+
+    public void shutdownNow() {
+        for (ThreadPoolExecutor executorService : executorServices.values()) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static class ScannerThreadFactory implements ThreadFactory {
+        private final Pool pool;
+        private final String threadNamePrefix;
+        private final AtomicInteger threadsCount = new AtomicInteger();
+        private final ThreadFactory blockingThreadFactory; // virtual threads on Java 21+
+
+        ScannerThreadFactory(Pool pool) {
+            this.pool = pool;
+            this.threadNamePrefix = pool.threadNamePrefix;
+            this.blockingThreadFactory = pool.isBlocking ? VirtualThreads.newThreadFactory(threadNamePrefix) : null;
+        }
 
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Runnable poolRunnable = () -> {
+                currentPool.set(pool);
+                runnable.run();
+            };
+            if (blockingThreadFactory != null) {
+                return blockingThreadFactory.newThread(poolRunnable);
+            }
+            return new Thread(poolRunnable, threadNamePrefix + threadsCount.incrementAndGet());
+        }
+    }
+
+    private static class BlockingRejectionHandler implements RejectedExecutionHandler {
+        private final Pool pool;
+
+        BlockingRejectionHandler(Pool pool) {
+            this.pool = pool;
+        }
 
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The scanners thread pool was shut down");
+            }
+            Pool submittingPool = currentPool.get();
+            if (submittingPool == pool || (submittingPool != null && submittingPool.isBlocking)) {
+                runnable.run();
+                return;
+            }
+            try {
+                // Backpressure: the producer waits for the workers
+                executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the scanners queue", e);
+            }
+            // Shut down while waiting: the task would never run
+            if (executor.isShutdown() && executor.remove(runnable)) {
+                throw new RejectedExecutionException("The scanners thread pool was shut down");
+            }
+        }
+    }
+}
@@ -1,10 +1,32 @@
 package burp.config;
 
+import java.nio.file.Paths;
+
+import static burp.utils.Constants.DEFAULT_NPM_REGISTRY_URL;
+
 public class ExtensionConfig {
 
     private static ExtensionConfig extensionConfig = null;
     private boolean isVerboseLogging = true;
     private boolean isPassiveEnabled = true;
+    private String npmRegistryURL = DEFAULT_NPM_REGISTRY_URL;
+    private boolean isOfflineDependencyConfusion = false;
+    private int mapProbeCacheTTLHours = 12;
+    private boolean isPersistMapProbeCache = false;
+    private double requestsPerSecondPerHost = 5;
+    private int maxInFlightRequests = 10;
+    private int threadPoolSize = Runtime.getRuntime().availableProcessors();
+    // Virtual threads (Java 21+) are cheap enough to keep many more requests in flight
+    private int ioThreadPoolSize = VirtualThreads.isSupported() ? 256 : 32;
+    private boolean isScanReconstructedSources = true;
+    private boolean isSaveReconstructedSources = true;
+    private boolean isArchiveStaticFiles = false;
+    private boolean isArchiveReconstructedSources = false;
+    private String npmNameIndexPath = Paths.get(System.getProperty("user.home"))
+            .resolve(".BurpSuite")
+            .resolve("JS-Miner")
+            .resolve("npm-names.idx")
+            .toString();
 
     public static ExtensionConfig getInstance() {
         if (extensionConfig == null)
@@ -24,6 +46,30 @@ public class ExtensionConfig {
         setPassiveEnabled(!isPassiveEnabled());
     }
 
+    public void toggleOfflineDependencyConfusion() {
+        setOfflineDependencyConfusion(!isOfflineDependencyConfusion());
+    }
+
+    public void togglePersistMapProbeCache() {
+        setPersistMapProbeCache(!isPersistMapProbeCache());
+    }
+
+    public void toggleScanReconstructedSources() {
+        setScanReconstructedSources(!isScanReconstructedSources());
+    }
+
+    public void toggleSaveReconstructedSources() {
+        setSaveReconstructedSources(!isSaveReconstructedSources());
+    }
+
+    public void toggleArchiveStaticFiles() {
+        setArchiveStaticFiles(!isArchiveStaticFiles());
+    }
+
+    public void toggleArchiveReconstructedSources() {
+        setArchiveReconstructedSources(!isArchiveReconstructedSources());
+    }
+
     public String loggingConfigMenuItemText() {
         if (extensionConfig.isVerboseLogging()) {
             return "Disable verbose logging for tasks";
@@ -40,6 +86,22 @@ public class ExtensionConfig {
         }
     }
 
+    public String offlineDependencyConfusionMenuItemText() {
+        if (extensionConfig.isOfflineDependencyConfusion()) {
+            return "Disable offline dependency confusion mode";
+        } else {
+            return "Enable offline dependency confusion mode";
+        }
+    }
+
+    public String persistMapProbeCacheMenuItemText() {
+        if (extensionConfig.isPersistMapProbeCache()) {
+            return "Disable persistent source map probe cache";
+        } else {
+            return "Enable persistent source map probe cache";
+        }
+    }
+
     public boolean isVerboseLogging() {
         return isVerboseLogging;
     }
@@ -56,4 +118,140 @@ public class ExtensionConfig {
         isPassiveEnabled = passiveEnabled;
     }
 
+    public String getNpmRegistryURL() {
+        return npmRegistryURL;
+    }
+
+    public void setNpmRegistryURL(String npmRegistryURL) {
+        this.npmRegistryURL = npmRegistryURL;
+    }
+
+    public boolean isOfflineDependencyConfusion() {
+        return isOfflineDependencyConfusion;
+    }
+
+    public void setOfflineDependencyConfusion(boolean offlineDependencyConfusion) {
+        isOfflineDependencyConfusion = offlineDependencyConfusion;
+    }
+
+    public int getMapProbeCacheTTLHours() {
+        return mapProbeCacheTTLHours;
+    }
+
+    public void setMapProbeCacheTTLHours(int mapProbeCacheTTLHours) {
+        this.mapProbeCacheTTLHours = mapProbeCacheTTLHours;
+    }
+
+    public boolean isPersistMapProbeCache() {
+        return isPersistMapProbeCache;
+    }
+
+    public void setPersistMapProbeCache(boolean persistMapProbeCache) {
+        isPersistMapProbeCache = persistMapProbeCache;
+    }
+
+    public String scanReconstructedSourcesMenuItemText() {
+        if (extensionConfig.isScanReconstructedSources()) {
+            return "Disable scans of reconstructed sources (source maps)";
+        } else {
+            return "Enable scans of reconstructed sources (source maps)";
+        }
+    }
+
+    public String saveReconstructedSourcesMenuItemText() {
+        if (extensionConfig.isSaveReconstructedSources()) {
+            return "Disable saving reconstructed sources to disk";
+        } else {
+            return "Enable saving reconstructed sources to disk";
+        }
+    }
+
+    public String archiveStaticFilesMenuItemText() {
+        if (extensionConfig.isArchiveStaticFiles()) {
+            return "Disable ZIP output for static files dumps";
+        } else {
+            return "Enable ZIP output for static files dumps";
+        }
+    }
+
+    public String archiveReconstructedSourcesMenuItemText() {
+        if (extensionConfig.isArchiveReconstructedSources()) {
+            return "Disable ZIP output for reconstructed sources";
+        } else {
+            return "Enable ZIP output for reconstructed sources";
+        }
+    }
+
+    public boolean isArchiveStaticFiles() {
+        return isArchiveStaticFiles;
+    }
+
+    public void setArchiveStaticFiles(boolean archiveStaticFiles) {
+        isArchiveStaticFiles = archiveStaticFiles;
+    }
+
+    public boolean isArchiveReconstructedSources() {
+        return isArchiveReconstructedSources;
+    }
+
+    public void setArchiveReconstructedSources(boolean archiveReconstructedSources) {
+        isArchiveReconstructedSources = archiveReconstructedSources;
+    }
+
+    public boolean isScanReconstructedSources() {
+        return isScanReconstructedSources;
+    }
+
+    public void setScanReconstructedSources(boolean scanReconstructedSources) {
+        isScanReconstructedSources = scanReconstructedSources;
+    }
+
+    public boolean isSaveReconstructedSources() {
+        return isSaveReconstructedSources;
+    }
+
+    public void setSaveReconstructedSources(boolean saveReconstructedSources) {
+        isSaveReconstructedSources = saveReconstructedSources;
+    }
+
+    public double getRequestsPerSecondPerHost() {
+        return requestsPerSecondPerHost;
+    }
+
+    public void setRequestsPerSecondPerHost(double requestsPerSecondPerHost) {
+        this.requestsPerSecondPerHost = requestsPerSecondPerHost;
+    }
+
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public int getThreadPoolSize() {
+        return threadPoolSize;
+    }
+
+    public void setThreadPoolSize(int threadPoolSize) {
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    public int getIoThreadPoolSize() {
+        return ioThreadPoolSize;
+    }
+
+    public void setIoThreadPoolSize(int ioThreadPoolSize) {
+        this.ioThreadPoolSize = ioThreadPoolSize;
+    }
+
+    public String getNpmNameIndexPath() {
+        return npmNameIndexPath;
+    }
+
+    public void setNpmNameIndexPath(String npmNameIndexPath) {
+        this.npmNameIndexPath = npmNameIndexPath;
+    }
+
 }
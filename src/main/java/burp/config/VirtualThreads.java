@@ -0,0 +1,32 @@
+package burp.config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads of the I/O-bound scanners pool.
+ * This is the Java 8 implementation (platform threads): on Java 21+ runtimes, the multi-release jar loads
+ * "src/main/java21/burp/config/VirtualThreads.java" instead, which creates virtual threads.
+ */
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * @return A factory of threads named "threadNamePrefix1", "threadNamePrefix2"...
+     */
+    static ThreadFactory newThreadFactory(String threadNamePrefix) {
+        ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
+        AtomicInteger threadsCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = defaultThreadFactory.newThread(runnable);
+            thread.setName(threadNamePrefix + threadsCount.incrementAndGet());
+            return thread;
+        };
+    }
+}
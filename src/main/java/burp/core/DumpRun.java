@@ -0,0 +1,86 @@
+package burp.core;
+
+import burp.IHttpRequestResponse;
+import burp.utils.AsyncFileWriter;
+import burp.utils.FileUtils;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Completion barrier of a static files dump run.
+ * Every queued dump task is registered, and arrives once the file writer saved its file (or failed to);
+ * after the run is sealed (no more tasks), the last arrival closes the run's archives and manifest,
+ * then the completion action runs once the file writer persisted everything (whatever the tasks order is).
+ */
+public class DumpRun {
+    private final long timestamp;
+    private final Path manifestPath;
+    private final Consumer<DumpRun> onComplete;
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final AtomicBoolean isCompleted = new AtomicBoolean(false);
+    private volatile boolean isSealed = false;
+    // Output location (workspace or archive) -> a request/response of that host, to report the issue on
+    private final Map<Path, IHttpRequestResponse> outputs = new ConcurrentHashMap<>();
+
+    public DumpRun(long timestamp, Consumer<DumpRun> onComplete) {
+        this.timestamp = timestamp;
+        this.manifestPath = FileUtils.getDumpManifestPath(timestamp);
+        this.onComplete = onComplete;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Path getManifestPath() {
+        return manifestPath;
+    }
+
+    public Map<Path, IHttpRequestResponse> getOutputs() {
+        return outputs;
+    }
+
+    public void register() {
+        pendingTasks.incrementAndGet();
+    }
+
+    /**
+     * Called by each registered task once done (even if it failed).
+     *
+     * @param outputLocation The workspace or archive the file was written to (null if nothing was saved)
+     */
+    public void arrive(Path outputLocation, IHttpRequestResponse requestResponse) {
+        if (outputLocation != null) {
+            outputs.putIfAbsent(outputLocation, requestResponse);
+        }
+        pendingTasks.decrementAndGet();
+        completeIfDone();
+    }
+
+    /**
+     * No more tasks will be registered.
+     */
+    public void seal() {
+        isSealed = true;
+        completeIfDone();
+    }
+
+    private void completeIfDone() {
+        if (isSealed && pendingTasks.get() == 0 && isCompleted.compareAndSet(false, true)) {
+            AsyncFileWriter asyncFileWriter = AsyncFileWriter.getInstance();
+            for (Path outputLocation : outputs.keySet()) {
+                if (FileUtils.isArchive(outputLocation)) {
+                    asyncFileWriter.closeArchive(outputLocation);
+                }
+            }
+            asyncFileWriter.closeManifest(manifestPath);
+            // Reported off the writer thread, which must keep writing meanwhile
+            asyncFileWriter.flush().thenRunAsync(() -> onComplete.accept(this));
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package burp.core;
+
+import burp.utils.EndpointExtractor;
+import com.google.re2j.Pattern;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * Site-wide inventory of the API endpoints found by the endpoints finder, deduplicated by
+ * (server, method, normalized path template) across all the scanned files.
+ * It is updated as files are scanned, and can be exported as JSON or as an OpenAPI 3 skeleton.
+ * Once full, endpoints that are not in the inventory yet are still reported as new, but no longer recorded.
+ */
+public class EndpointInventory {
+    private static EndpointInventory endpointInventory = null;
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final int MAX_SOURCES_PER_ENDPOINT = 20;
+    private static final int MAX_ENDPOINTS = 50_000;
+    private static final String OPENAPI_VERSION = "3.0.3";
+
+    // Path segments replaced by a parameter
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("\\d+");
+    private static final Pattern UUID_SEGMENT = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern HEX_ID_SEGMENT = Pattern.compile("[0-9a-fA-F]{24,}");
+
+    private final Map<String, InventoryEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicBoolean isFullReported = new AtomicBoolean(false);
+
+    public static class InventoryEndpoint {
+        private final String server;
+        private final String method;
+        private final String pathTemplate;
+        private final Set<String> sources = new LinkedHashSet<>();
+
+        InventoryEndpoint(String server, String method, String pathTemplate) {
+            this.server = server;
+            this.method = method;
+            this.pathTemplate = pathTemplate;
+        }
+
+        public String getServer() {
+            return server;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPathTemplate() {
+            return pathTemplate;
+        }
+
+        public synchronized List<String> getSources() {
+            return new ArrayList<>(sources);
+        }
+
+        synchronized void addSource(String source) {
+            if (sources.size() < MAX_SOURCES_PER_ENDPOINT) {
+                sources.add(source);
+            }
+        }
+    }
+
+    public static synchronized EndpointInventory getInstance() {
+        if (endpointInventory == null)
+            endpointInventory = new EndpointInventory();
+        return endpointInventory;
+    }
+
+    private EndpointInventory() {
+    }
+
+    /**
+     * Adds the endpoints found in a file.
+     *
+     * @param fileURL The scanned file
+     * @param pageURL The page that loaded the file (from the "Referer" header), or null if unknown. Relative
+     *                endpoints are resolved against its origin, like the browser does (the file may be served by a
+     *                CDN), or against the file origin without it.
+     * @return The endpoints that were not in the inventory yet
+     */
+    public List<EndpointExtractor.Endpoint> add(URL fileURL, URL pageURL, List<EndpointExtractor.Endpoint> fileEndpoints) {
+        List<EndpointExtractor.Endpoint> newEndpoints = new ArrayList<>();
+        URL baseURL = pageURL != null ? pageURL : fileURL;
+        String baseOrigin = getOrigin(baseURL);
+        for (EndpointExtractor.Endpoint endpoint : fileEndpoints) {
+            String server = baseOrigin;
+            String path = endpoint.getUrl();
+            if (path.startsWith("//")) {
+                // Protocol-relative URL (e.g.: "//cdn.example.com/api"), same scheme as the page
+                path = baseURL.getProtocol() + ":" + path;
+            }
+            if (path.startsWith("http://") || path.startsWith("https://")) {
+                try {
+                    URL endpointURL = new URL(path);
+                    server = getOrigin(endpointURL);
+                    path = endpointURL.getPath();
+                } catch (MalformedURLException e) {
+                    continue;
+                }
+            }
+            String pathTemplate = normalizePath(path);
+            String key = endpoint.getMethod() + " " + server + pathTemplate;
+            InventoryEndpoint inventoryEndpoint = endpoints.get(key);
+            if (inventoryEndpoint == null && endpoints.size() >= MAX_ENDPOINTS) {
+                if (isFullReported.compareAndSet(false, true)) {
+                    mStdErr.println("[-] The endpoints inventory is full (" + MAX_ENDPOINTS + " endpoints), new endpoints are no longer recorded.");
+                }
+                newEndpoints.add(endpoint);
+                continue;
+            }
+            if (inventoryEndpoint == null) {
+                InventoryEndpoint newInventoryEndpoint = new InventoryEndpoint(server, endpoint.getMethod(), pathTemplate);
+                inventoryEndpoint = endpoints.putIfAbsent(key, newInventoryEndpoint);
+                if (inventoryEndpoint == null) {
+                    inventoryEndpoint = newInventoryEndpoint;
+                    newEndpoints.add(endpoint);
+                }
+            }
+            inventoryEndpoint.addSource(fileURL.toString());
+        }
+        return newEndpoints;
+    }
+
+    /**
+     * "/api/users/123/?q=1" -> "/api/users/{id}", "/api/users/:userId" -> "/api/users/{userId}".
+     * Repeated placeholders are numbered: "/api/users/1/posts/2" -> "/api/users/{id}/posts/{id2}".
+     */
+    static String normalizePath(String path) {
+        int queryIndex = indexOfAny(path, '?', '#');
+        if (queryIndex >= 0) {
+            path = path.substring(0, queryIndex);
+        }
+        StringBuilder pathTemplate = new StringBuilder();
+        Map<String, Integer> placeholderCounts = new HashMap<>();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            pathTemplate.append('/');
+            String placeholder = null;
+            if (segment.startsWith(":") && segment.length() > 1) {
+                placeholder = segment.substring(1);
+            } else if (NUMERIC_SEGMENT.matcher(segment).matches()
+                    || UUID_SEGMENT.matcher(segment).matches()
+                    || HEX_ID_SEGMENT.matcher(segment).matches()) {
+                placeholder = "id";
+            }
+            if (placeholder != null) {
+                int count = placeholderCounts.merge(placeholder, 1, Integer::sum);
+                pathTemplate.append('{').append(placeholder);
+                if (count > 1) {
+                    pathTemplate.append(count);
+                }
+                pathTemplate.append('}');
+            } else {
+                pathTemplate.append(segment);
+            }
+        }
+        return pathTemplate.length() == 0 ? "/" : pathTemplate.toString();
+    }
+
+    private static int indexOfAny(String string, char first, char second) {
+        int firstIndex = string.indexOf(first);
+        int secondIndex = string.indexOf(second);
+        if (firstIndex < 0 || (secondIndex >= 0 && secondIndex < firstIndex)) {
+            return secondIndex;
+        }
+        return firstIndex;
+    }
+
+    private static String getOrigin(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + (url.getPort() == -1 ? "" : ":" + url.getPort());
+    }
+
+    public int getSize() {
+        return endpoints.size();
+    }
+
+    public void clear() {
+        endpoints.clear();
+        isFullReported.set(false);
+    }
+
+    private List<InventoryEndpoint> getSortedEndpoints() {
+        List<InventoryEndpoint> sortedEndpoints = new ArrayList<>(endpoints.values());
+        sortedEndpoints.sort(Comparator.comparing(InventoryEndpoint::getServer)
+                .thenComparing(InventoryEndpoint::getPathTemplate)
+                .thenComparing(InventoryEndpoint::getMethod));
+        return sortedEndpoints;
+    }
+
+    /**
+     * @return The inventory as a JSON array of {server, method, path, sources}
+     */
+    public String toJson() throws JsonProcessingException {
+        ArrayNode jsonEndpoints = objectMapper.createArrayNode();
+        for (InventoryEndpoint endpoint : getSortedEndpoints()) {
+            ObjectNode jsonEndpoint = jsonEndpoints.addObject();
+            jsonEndpoint.put("server", endpoint.getServer());
+            jsonEndpoint.put("method", endpoint.getMethod());
+            jsonEndpoint.put("path", endpoint.getPathTemplate());
+            ArrayNode sources = jsonEndpoint.putArray("sources");
+            endpoint.getSources().forEach(sources::add);
+        }
+        return objectMapper.writeValueAsString(jsonEndpoints);
+    }
+
+    /**
+     * @return An OpenAPI 3 skeleton: the servers, and the paths with their operations and path parameters.
+     * Endpoints without a known method are listed with the "x-jsminer-unknown-method" extension instead of an operation.
+     */
+    public String toOpenApi() throws JsonProcessingException {
+        ObjectNode openApi = objectMapper.createObjectNode();
+        openApi.put("openapi", OPENAPI_VERSION);
+        ObjectNode info = openApi.putObject("info");
+        info.put("title", "API endpoints found by JS Miner");
+        info.put("version", "1.0.0");
+
+        Set<String> servers = new TreeSet<>();
+        Map<String, List<InventoryEndpoint>> endpointsByPath = new TreeMap<>();
+        for (InventoryEndpoint endpoint : getSortedEndpoints()) {
+            servers.add(endpoint.getServer());
+            endpointsByPath.computeIfAbsent(endpoint.getPathTemplate(), path -> new ArrayList<>()).add(endpoint);
+        }
+        ArrayNode jsonServers = openApi.putArray("servers");
+        for (String server : servers) {
+            jsonServers.addObject().put("url", server);
+        }
+
+        ObjectNode paths = openApi.putObject("paths");
+        for (Map.Entry<String, List<InventoryEndpoint>> pathEndpoints : endpointsByPath.entrySet()) {
+            ObjectNode pathItem = paths.putObject(pathEndpoints.getKey());
+            List<String> pathParameters = getPathParameters(pathEndpoints.getKey());
+            for (InventoryEndpoint endpoint : pathEndpoints.getValue()) {
+                if (endpoint.getMethod().equals(EndpointExtractor.ANY_METHOD)) {
+                    pathItem.put("x-jsminer-unknown-method", true);
+                    continue;
+                }
+                String method = endpoint.getMethod().toLowerCase(Locale.ROOT);
+                ObjectNode operation = pathItem.has(method) ? (ObjectNode) pathItem.get(method) : pathItem.putObject(method);
+                if (!operation.has("responses")) {
+                    if (!pathParameters.isEmpty()) {
+                        ArrayNode parameters = operation.putArray("parameters");
+                        for (String pathParameter : pathParameters) {
+                            ObjectNode parameter = parameters.addObject();
+                            parameter.put("name", pathParameter);
+                            parameter.put("in", "path");
+                            parameter.put("required", true);
+                            parameter.putObject("schema").put("type", "string");
+                        }
+                    }
+                    operation.putObject("responses").putObject("default").put("description", "Unknown");
+                }
+                ArrayNode operationServers = operation.has("x-jsminer-servers")
+                        ? (ArrayNode) operation.get("x-jsminer-servers")
+                        : operation.putArray("x-jsminer-servers");
+                operationServers.add(endpoint.getServer());
+                ArrayNode sources = operation.has("x-jsminer-sources")
+                        ? (ArrayNode) operation.get("x-jsminer-sources")
+                        : operation.putArray("x-jsminer-sources");
+                endpoint.getSources().forEach(sources::add);
+            }
+        }
+        return objectMapper.writeValueAsString(openApi);
+    }
+
+    private static List<String> getPathParameters(String pathTemplate) {
+        List<String> pathParameters = new ArrayList<>();
+        int parameterStart = pathTemplate.indexOf('{');
+        while (parameterStart >= 0) {
+            int parameterEnd = pathTemplate.indexOf('}', parameterStart);
+            if (parameterEnd < 0) {
+                break;
+            }
+            String pathParameter = pathTemplate.substring(parameterStart + 1, parameterEnd);
+            if (!pathParameter.isEmpty() && !pathParameters.contains(pathParameter)) {
+                pathParameters.add(pathParameter);
+            }
+            parameterStart = pathTemplate.indexOf('{', parameterEnd);
+        }
+        return Collections.unmodifiableList(pathParameters);
+    }
+}
@@ -0,0 +1,145 @@
+package burp.core;
+
+import burp.BurpExtender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * Remembers the result of ".map" probes (per map URL), so the same map is not requested again by later tasks.
+ * Entries expire after the TTL set in the extension configuration; found maps keep their ETag, so expired entries
+ * can be re-validated with a conditional request. The cache can optionally be persisted across Burp sessions.
+ * Once full, the least recently used entries are evicted.
+ */
+public class MapProbeCache {
+    private static MapProbeCache mapProbeCache = null;
+    private static final int MAX_ENTRIES = 100_000;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MapProbeCache.Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public enum ProbeResult {
+        NOT_FOUND,
+        NOT_A_MAP,
+        FOUND
+    }
+
+    public static class Entry {
+        private final ProbeResult result;
+        private final String eTag;
+        private final long timestamp;
+
+        Entry(ProbeResult result, String eTag, long timestamp) {
+            this.result = result;
+            this.eTag = eTag;
+            this.timestamp = timestamp;
+        }
+
+        public ProbeResult getResult() {
+            return result;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public boolean isFresh() {
+            long ttl = TimeUnit.HOURS.toMillis(BurpExtender.getExtensionConfig().getMapProbeCacheTTLHours());
+            return Instant.now().toEpochMilli() - timestamp < ttl;
+        }
+    }
+
+    public static synchronized MapProbeCache getInstance() {
+        if (mapProbeCache == null)
+            mapProbeCache = new MapProbeCache();
+        return mapProbeCache;
+    }
+
+    private MapProbeCache() {
+    }
+
+    public Entry get(String mapURL) {
+        synchronized (entries) {
+            return entries.get(mapURL);
+        }
+    }
+
+    public void put(String mapURL, ProbeResult result, String eTag) {
+        synchronized (entries) {
+            entries.put(mapURL, new Entry(result, eTag, Instant.now().toEpochMilli()));
+        }
+    }
+
+    public void removeExpired() {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> !entry.isFresh());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Serializes the fresh entries (e.g.: to be saved as an extension setting).
+     */
+    public String toJson() {
+        removeExpired();
+        ObjectNode root = objectMapper.createObjectNode();
+        synchronized (entries) {
+            for (Map.Entry<String, Entry> cacheEntry : entries.entrySet()) {
+                ObjectNode node = root.putObject(cacheEntry.getKey());
+                node.put("result", cacheEntry.getValue().getResult().name());
+                node.put("etag", cacheEntry.getValue().getETag());
+                node.put("timestamp", cacheEntry.getValue().timestamp);
+            }
+        }
+        return root.toString();
+    }
+
+    /**
+     * Loads entries saved with "toJson" (expired entries are dropped).
+     */
+    public void loadJson(String json) {
+        try {
+            JsonNode root = objectMapper.readTree(json);
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode node = field.getValue();
+                Entry entry = new Entry(
+                        ProbeResult.valueOf(node.path("result").asText()),
+                        node.hasNonNull("etag") ? node.get("etag").asText() : null,
+                        node.path("timestamp").asLong());
+                if (entry.isFresh()) {
+                    synchronized (entries) {
+                        entries.put(field.getKey(), entry);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            mStdErr.println("[-] The saved source map probe cache could not be loaded.");
+        }
+    }
+}
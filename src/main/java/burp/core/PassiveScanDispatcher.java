@@ -0,0 +1,173 @@
+package burp.core;
+
+import burp.BurpExtender;
+import burp.IHttpRequestResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * One long-lived thread feeding the scanners pool, instead of a new thread per passively scanned response
+ * (and per menu action).
+ * Responses handed over by Burp's passive scanner are queued (lock-free, many producers / one consumer), then
+ * coalesced into micro-batches: one ScannerBuilder (and one set of tasks de-duplication checks) per batch.
+ * Menu actions are queued as jobs, and run in order by a separate thread: a large menu action waiting for the
+ * scanners pool does not hold back the passive scans.
+ */
+public class PassiveScanDispatcher {
+    private static PassiveScanDispatcher passiveScanDispatcher = null;
+    private static final int MAX_BATCH_SIZE = 64;
+    // How long a batch waits for more responses once its first response arrived
+    private static final long BATCH_LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    // Burp's passive scanner threads wait above this number of queued responses
+    private static final int MAX_PENDING_RESPONSES = 10_000;
+
+    private final ConcurrentLinkedQueue<IHttpRequestResponse> queue = new ConcurrentLinkedQueue<>();
+    // One permit per free queue slot
+    private final Semaphore freeSlots = new Semaphore(MAX_PENDING_RESPONSES);
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private final ExecutorService jobsExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "JS-Miner-Menu-Jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread dispatcherThread;
+    private volatile boolean running = true;
+
+    public static synchronized PassiveScanDispatcher getInstance() {
+        if (passiveScanDispatcher == null)
+            passiveScanDispatcher = new PassiveScanDispatcher();
+        return passiveScanDispatcher;
+    }
+
+    private PassiveScanDispatcher() {
+        dispatcherThread = new Thread(this::dispatch, "JS-Miner-Scan-Dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    /**
+     * Queues a response for all the passive scans.
+     * Backpressure: once the queue is full, the caller waits for a free slot (the dispatcher is itself waiting for
+     * the scanners pool).
+     */
+    public void dispatch(IHttpRequestResponse baseRequestResponse) {
+        try {
+            freeSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!running) {
+            freeSlots.release();
+            return;
+        }
+        queue.offer(baseRequestResponse);
+        LockSupport.unpark(dispatcherThread);
+    }
+
+    /**
+     * Queues a job (e.g.: a menu action building its own ScannerBuilder).
+     */
+    public void dispatchJob(Runnable job) {
+        if (!running) {
+            return;
+        }
+        pendingJobs.incrementAndGet();
+        try {
+            jobsExecutor.execute(() -> {
+                try {
+                    job.run();
+                } catch (RuntimeException e) {
+                    if (running) {
+                        mStdErr.println("[-] Scan dispatcher exception: " + e.getMessage());
+                    }
+                } finally {
+                    pendingJobs.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingJobs.decrementAndGet();
+        }
+    }
+
+    public int getPendingItemsCount() {
+        return MAX_PENDING_RESPONSES - freeSlots.availablePermits() + pendingJobs.get();
+    }
+
+    private IHttpRequestResponse poll() {
+        IHttpRequestResponse item = queue.poll();
+        if (item != null) {
+            freeSlots.release();
+        }
+        return item;
+    }
+
+    private void dispatch() {
+        while (running) {
+            IHttpRequestResponse item = poll();
+            if (item == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                List<IHttpRequestResponse> batch = new ArrayList<>();
+                batch.add(item);
+                long deadline = System.nanoTime() + BATCH_LINGER_NANOS;
+                while (batch.size() < MAX_BATCH_SIZE && running) {
+                    IHttpRequestResponse nextItem = poll();
+                    if (nextItem != null) {
+                        batch.add(nextItem);
+                        continue;
+                    }
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, remainingNanos);
+                }
+                runPassiveScans(batch);
+            } catch (RuntimeException e) {
+                if (running) {
+                    mStdErr.println("[-] Scan dispatcher exception: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void runPassiveScans(List<IHttpRequestResponse> batch) {
+        if (!BurpExtender.isLoaded()) {
+            return;
+        }
+        new ScannerBuilder.Builder(batch.toArray(new IHttpRequestResponse[0]))
+                .runAllPassiveScans()
+                .passiveScanner()
+                .timeStamp(Instant.now().toEpochMilli())
+                .build()
+                .runScans();
+    }
+
+    /**
+     * Drops the queued responses / jobs, and stops the dispatcher and jobs threads.
+     */
+    public void shutdown() {
+        running = false;
+        queue.clear();
+        // Wakes up the callers waiting for a free slot
+        freeSlots.release(MAX_PENDING_RESPONSES);
+        jobsExecutor.shutdownNow();
+        dispatcherThread.interrupt();
+        LockSupport.unpark(dispatcherThread);
+    }
+}
@@ -8,10 +8,11 @@ import burp.core.scanners.*;
 import burp.utils.Utilities;
 
 import java.time.Instant;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
+import static burp.BurpExtender.mStdErr;
 import static burp.BurpExtender.mStdOut;
 import static burp.utils.Constants.*;
 
@@ -23,6 +24,7 @@ public class ScannerBuilder {
     private static final String[] EXTENSION_JS = {"js"};
     private static final String[] EXTENSION_JS_JSON = {"js", "json"};
     private static final String[] EXTENSION_CSS = {"css"};
+    private static final String[] EXTENSION_STYLESHEETS = {"css", "scss", "sass", "less"};
     private static final String[] EXTENSION_JS_JSON_CSS_MAP = {"js", "json", "css", "map"};
     private static final IBurpExtenderCallbacks callbacks = BurpExtender.getCallbacks();
     private static final IExtensionHelpers helpers = callbacks.getHelpers();
@@ -38,6 +40,8 @@ public class ScannerBuilder {
     private final boolean activeSourceMapperScan;
     private final boolean dumpStaticFiles;
     private final boolean endpointsFinder;
+    private final boolean inMemory;
+    private final boolean passiveScanner;
 
 
     public static class Builder {
@@ -55,6 +59,8 @@ public class ScannerBuilder {
         private boolean activeSourceMapperScan = false;
         private boolean dumpStaticFiles = false;
         private boolean endpointsFinder = false;
+        private boolean inMemory = false;
+        private boolean passiveScanner = false;
 
         public Builder(IHttpRequestResponse[] baseRequestResponseArray) {
             this.baseRequestResponseArray = baseRequestResponseArray;
@@ -110,6 +116,24 @@ public class ScannerBuilder {
             return this;
         }
 
+        /*
+         * The passed requests/responses are in-memory files (e.g.: reconstructed sources),
+         * they are scanned as is, instead of querying the site map for JS/JSON files under their URLs.
+         */
+        public Builder inMemory() {
+            inMemory = true;
+            return this;
+        }
+
+        /*
+         * The passed requests/responses were handed over by Burp's passive scanner,
+         * the JS/JSON files among them are scanned without querying the site map.
+         */
+        public Builder passiveScanner() {
+            passiveScanner = true;
+            return this;
+        }
+
         public Builder runAllPassiveScans() {
             scanDependencyConfusion = true;
             scanSubDomains = true;
@@ -143,6 +167,8 @@ public class ScannerBuilder {
         activeSourceMapperScan = builder.activeSourceMapperScan;
         dumpStaticFiles = builder.dumpStaticFiles;
         endpointsFinder = builder.endpointsFinder;
+        inMemory = builder.inMemory;
+        passiveScanner = builder.passiveScanner;
     }
 
     public void runScans() {
@@ -179,7 +205,7 @@ public class ScannerBuilder {
         }
     }
 
-    private static void scanVerifierExecutor(IHttpRequestResponse requestResponse, int taskId, TaskName taskName, long timeStamp, boolean isLastIterator) {
+    private static void scanVerifierExecutor(IHttpRequestResponse requestResponse, int taskId, TaskName taskName, long timeStamp, DumpRun dumpRun) {
         String url = helpers.analyzeRequest(requestResponse).getUrl().toString();
         byte[] responseBodyHash = Utilities.getHTTPResponseBodyHash(requestResponse);
         // Checks if Request URL & Response Body Hash were not scanned before
@@ -189,45 +215,23 @@ public class ScannerBuilder {
             BurpExtender.getTaskRepository().addTask(
                     new Task(taskId, uuid, taskName, url, responseBodyHash)
             );
-            switch (taskName){
-                case SECRETS_SCAN:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new Secrets(requestResponse, uuid));
-                    break;
-                case DEPENDENCY_CONFUSION_SCAN:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new DependencyConfusion(requestResponse, uuid, true));
-                    break;
-                case DEPENDENCY_CONFUSION_SCAN_2:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new DependencyConfusion(requestResponse, uuid, false));
-                    break;
-                case SUBDOMAINS_SCAN:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new SubDomains(requestResponse, uuid));
-                    break;
-                case CLOUD_URLS_SCAN:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new CloudURLs(requestResponse, uuid));
-                    break;
-                case INLINE_JS_SOURCE_MAPPER:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new InlineSourceMapFiles(requestResponse, uuid, timeStamp));
-                    break;
-                case SOURCE_MAPPER_ACTIVE_SCAN:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new ActiveSourceMapper(requestResponse, timeStamp, uuid));
-                    break;
-                case STATIC_FILES_DUMPER:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new StaticFilesDumper(requestResponse, timeStamp, uuid, isLastIterator));
-                    break;
-                case ENDPOINTS_FINDER:
-                    BurpExtender.getExecutorServiceManager().getExecutorService().submit(
-                            new Endpoints(requestResponse, uuid));
-                    break;
-                default:
-                    break;
+            try {
+                Runnable task = newTask(requestResponse, uuid, taskName, dumpRun);
+                if (task == null) {
+                    return;
+                }
+                // Each task type runs in the pool it needs (CPU-bound scans / network and disk I/O)
+                BurpExtender.getExecutorServiceManager().getExecutorService(taskName.getPool()).submit(task);
+            } catch (RuntimeException e) {
+                // e.g.: a file path that can not be built, or the pools were shut down
+                BurpExtender.getTaskRepository().failTask(uuid);
+                mStdErr.println("[-] " + taskName + " task could not be started for " + url + ": " + e.getClass().getSimpleName());
+                return;
+            }
+            if (dumpRun != null) {
+                // Only tasks that were actually queued are waited for (the run is sealed after all the registrations,
+                // so a task arriving before its registration can not complete it early)
+                dumpRun.register();
             }
         } else {
             // Log skipped task to console
@@ -235,76 +239,137 @@ public class ScannerBuilder {
         }
     }
 
-    private static void runSecretsScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS_JSON);
+    private static Runnable newTask(IHttpRequestResponse requestResponse, UUID uuid, TaskName taskName, DumpRun dumpRun) {
+        switch (taskName){
+            case SECRETS_SCAN:
+                return new Secrets(requestResponse, uuid);
+            case DEPENDENCY_CONFUSION_SCAN:
+                return new DependencyConfusion(requestResponse, uuid, true);
+            case DEPENDENCY_CONFUSION_SCAN_2:
+                return new DependencyConfusion(requestResponse, uuid, false);
+            case SUBDOMAINS_SCAN:
+                return new SubDomains(requestResponse, uuid);
+            case CLOUD_URLS_SCAN:
+                return new CloudURLs(requestResponse, uuid);
+            case INLINE_JS_SOURCE_MAPPER:
+                return new InlineSourceMapFiles(requestResponse, uuid);
+            case SOURCE_MAPPER_ACTIVE_SCAN:
+                return new ActiveSourceMapper(requestResponse, uuid);
+            case STATIC_FILES_DUMPER:
+                return new StaticFilesDumper(requestResponse, dumpRun, uuid);
+            case ENDPOINTS_FINDER:
+                return new Endpoints(requestResponse, uuid);
+            default:
+                return null;
+        }
+    }
+
+    private void runSecretsScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS_JSON);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.SECRETS_SCAN, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.SECRETS_SCAN, timeStamp, null);
         }
     }
 
-    private static void runDependencyConfusionScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        // run Dependency Confusion Regex for all JS/JSON files
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS_JSON);
+    private void runDependencyConfusionScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        // extract "dependencies" blocks from all JS/JSON files
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS_JSON);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.DEPENDENCY_CONFUSION_SCAN, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.DEPENDENCY_CONFUSION_SCAN, timeStamp, null);
         }
 
-        // For CSS files, don't run the regex (only check for disclosures like in '/node_modules/<pkg>')
-        Set<IHttpRequestResponse> uniqueRequestsCSS = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_CSS);
+        // For CSS files, don't extract dependency blocks (only check for disclosures like in '/node_modules/<pkg>')
+        Set<IHttpRequestResponse> uniqueRequestsCSS = getScanTargets(baseRequestResponseArray, EXTENSION_CSS);
         for (IHttpRequestResponse requestResponse : uniqueRequestsCSS) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.DEPENDENCY_CONFUSION_SCAN_2, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.DEPENDENCY_CONFUSION_SCAN_2, timeStamp, null);
         }
     }
 
-    private static void runCloudURLsScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS_JSON);
+    private void runCloudURLsScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS_JSON);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.CLOUD_URLS_SCAN, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.CLOUD_URLS_SCAN, timeStamp, null);
         }
     }
 
-    private static void runSubDomainsScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS_JSON);
+    private void runSubDomainsScan(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS_JSON);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.SUBDOMAINS_SCAN, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.SUBDOMAINS_SCAN, timeStamp, null);
         }
     }
 
-    private static void runInlineSourceMapper(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS);
+    private void runInlineSourceMapper(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.INLINE_JS_SOURCE_MAPPER, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.INLINE_JS_SOURCE_MAPPER, timeStamp, null);
         }
     }
 
-    private static void runActiveSourceMapper(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS);
+    private void runActiveSourceMapper(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.SOURCE_MAPPER_ACTIVE_SCAN, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.SOURCE_MAPPER_ACTIVE_SCAN, timeStamp, null);
         }
     }
 
-    private static void runStaticFilesDumper(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS_JSON_CSS_MAP);
-        Iterator<IHttpRequestResponse> iterator = uniqueRequests.iterator();
-        while (iterator.hasNext()) {
-            boolean isLastIterator = false;
-            IHttpRequestResponse httpRequestResponse = iterator.next();
-            if (!iterator.hasNext()) {
-                isLastIterator = true;
+    private void runStaticFilesDumper(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS_JSON_CSS_MAP);
+        // The issue is reported once all the files of this run were written
+        DumpRun dumpRun = new DumpRun(timeStamp, StaticFilesDumper::reportDumpRun);
+        try {
+            for (IHttpRequestResponse httpRequestResponse : uniqueRequests) {
+                scanVerifierExecutor(httpRequestResponse, taskId, TaskName.STATIC_FILES_DUMPER, timeStamp, dumpRun);
             }
-            scanVerifierExecutor(httpRequestResponse, taskId, TaskName.STATIC_FILES_DUMPER, timeStamp, isLastIterator);
+        } finally {
+            dumpRun.seal();
         }
     }
 
-    private static void runEndpointsFinder(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
-        Set<IHttpRequestResponse> uniqueRequests = Utilities.querySiteMap(baseRequestResponseArray, EXTENSION_JS);
+    private void runEndpointsFinder(IHttpRequestResponse[] baseRequestResponseArray, int taskId, long timeStamp) {
+        Set<IHttpRequestResponse> uniqueRequests = getScanTargets(baseRequestResponseArray, EXTENSION_JS);
         for (IHttpRequestResponse requestResponse : uniqueRequests) {
-            scanVerifierExecutor(requestResponse, taskId, TaskName.ENDPOINTS_FINDER, timeStamp, false);
+            scanVerifierExecutor(requestResponse, taskId, TaskName.ENDPOINTS_FINDER, timeStamp, null);
         }
     }
 
 
+    private Set<IHttpRequestResponse> getScanTargets(IHttpRequestResponse[] baseRequestResponseArray, String[] fileExtensions) {
+        if (passiveScanner) {
+            Set<IHttpRequestResponse> scanTargets = new HashSet<>();
+            for (IHttpRequestResponse requestResponse : baseRequestResponseArray) {
+                if (Utilities.isValidScanTarget(requestResponse, fileExtensions)) {
+                    scanTargets.add(requestResponse);
+                }
+            }
+            return scanTargets;
+        }
+        if (!inMemory) {
+            return Utilities.querySiteMap(baseRequestResponseArray, fileExtensions);
+        }
+        // In-memory files can have any extension (.ts, .vue, .jsx, ..etc.), only stylesheets are told apart
+        boolean styleSheetsOnly = fileExtensions == EXTENSION_CSS;
+        Set<IHttpRequestResponse> scanTargets = new HashSet<>();
+        for (IHttpRequestResponse requestResponse : baseRequestResponseArray) {
+            if (requestResponse.getResponse() != null && BurpExtender.isLoaded()
+                    && isStyleSheet(helpers.analyzeRequest(requestResponse).getUrl().toString()) == styleSheetsOnly) {
+                scanTargets.add(requestResponse);
+            }
+        }
+        return scanTargets;
+    }
+
+    // The file name is at the end of the URL (for reconstructed sources, it is the last query parameter)
+    private static boolean isStyleSheet(String url) {
+        String lowerCaseURL = url.toLowerCase();
+        for (String extension : EXTENSION_STYLESHEETS) {
+            if (lowerCaseURL.endsWith("." + extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return "Scan Information{" +
@@ -0,0 +1,168 @@
+package burp.core;
+
+import burp.BurpExtender;
+import burp.IBurpExtenderCallbacks;
+import burp.IHttpRequestResponse;
+import burp.IHttpService;
+import burp.IScopeChangeListener;
+import burp.utils.DomainSuffixTrie;
+import burp.utils.Utilities;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * The in-scope root (registrable) domains, so the subdomains scanner can search all of them in one pass.
+ * They come from the Burp target scope rules and from the hosts seen in the site map / scanned files that are in scope,
+ * and the trie is updated (only the added / removed domains) whenever the scope changes.
+ */
+public class ScopeDomains implements IScopeChangeListener {
+    private static ScopeDomains scopeDomains = null;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DomainSuffixTrie<String> domainSuffixTrie = new DomainSuffixTrie<>();
+    // Current content of the trie
+    private final Set<String> rootDomains = new HashSet<>();
+    // Seen host -> a URL of that host (to check it against the scope again when the scope changes)
+    private final Map<String, URL> seenHosts = new ConcurrentHashMap<>();
+
+    public static synchronized ScopeDomains getInstance() {
+        if (scopeDomains == null)
+            scopeDomains = new ScopeDomains();
+        return scopeDomains;
+    }
+
+    private ScopeDomains() {
+    }
+
+    public DomainSuffixTrie<String> getDomainSuffixTrie() {
+        return domainSuffixTrie;
+    }
+
+    /**
+     * Loads the hosts of the site map (once, when the extension is loaded) then the scope rules.
+     */
+    public void init() {
+        IBurpExtenderCallbacks callbacks = BurpExtender.getCallbacks();
+        for (IHttpRequestResponse siteMapItem : callbacks.getSiteMap(null)) {
+            IHttpService httpService = siteMapItem.getHttpService();
+            if (httpService != null && !seenHosts.containsKey(httpService.getHost())) {
+                try {
+                    seenHosts.put(httpService.getHost(), BurpExtender.getHelpers().analyzeRequest(siteMapItem).getUrl());
+                } catch (RuntimeException e) {
+                    // e.g.: site map items without a request
+                }
+            }
+        }
+        scopeChanged();
+    }
+
+    /**
+     * Called for every scanned file, adds its root domain if the host is new and in scope.
+     */
+    public void addSeenHost(URL url) {
+        if (seenHosts.putIfAbsent(url.getHost(), url) == null && BurpExtender.getCallbacks().isInScope(url)) {
+            String rootDomain = Utilities.getRootDomain(url.getHost());
+            if (rootDomain != null) {
+                synchronized (this) {
+                    if (rootDomains.add(rootDomain)) {
+                        domainSuffixTrie.add(rootDomain, rootDomain);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void scopeChanged() {
+        IBurpExtenderCallbacks callbacks = BurpExtender.getCallbacks();
+        Set<String> newRootDomains = getScopeRulesDomains();
+        for (URL url : seenHosts.values()) {
+            if (callbacks.isInScope(url)) {
+                String rootDomain = Utilities.getRootDomain(url.getHost());
+                if (rootDomain != null) {
+                    newRootDomains.add(rootDomain);
+                }
+            }
+        }
+
+        // Incremental update, the scanners keep matching against the trie meanwhile
+        for (String rootDomain : rootDomains) {
+            if (!newRootDomains.contains(rootDomain)) {
+                domainSuffixTrie.remove(rootDomain);
+            }
+        }
+        for (String rootDomain : newRootDomains) {
+            if (!rootDomains.contains(rootDomain)) {
+                domainSuffixTrie.add(rootDomain, rootDomain);
+            }
+        }
+        rootDomains.clear();
+        rootDomains.addAll(newRootDomains);
+    }
+
+    /**
+     * Root domains of the enabled "include" rules of the target scope:
+     * the URL prefix in the simple mode, the literal end of the host regex in the advanced mode (e.g.: "^.*\.example\.com$").
+     */
+    private static Set<String> getScopeRulesDomains() {
+        Set<String> domains = new HashSet<>();
+        try {
+            JsonNode includeRules = objectMapper.readTree(BurpExtender.getCallbacks().saveConfigAsJson("target.scope"))
+                    .path("target").path("scope").path("include");
+            for (JsonNode includeRule : includeRules) {
+                if (!includeRule.path("enabled").asBoolean(true)) {
+                    continue;
+                }
+                String host = null;
+                if (includeRule.hasNonNull("prefix")) {
+                    host = getPrefixHost(includeRule.get("prefix").asText());
+                } else if (includeRule.hasNonNull("host")) {
+                    host = getLiteralHost(includeRule.get("host").asText());
+                }
+                String rootDomain = host == null ? null : Utilities.getRootDomain(host);
+                if (rootDomain != null) {
+                    domains.add(rootDomain);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            mStdErr.println("[-] Could not read the target scope.");
+        }
+        return domains;
+    }
+
+    private static String getPrefixHost(String prefix) {
+        try {
+            return new URL(prefix.contains("://") ? prefix : "http://" + prefix).getHost();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static String getLiteralHost(String hostRegex) {
+        String host = hostRegex.replace("$", "").replace("\\.", ".").toLowerCase(Locale.ROOT);
+        int start = host.length();
+        while (start > 0 && isHostChar(host.charAt(start - 1))) {
+            start--;
+        }
+        host = host.substring(start);
+        while (host.startsWith(".")) {
+            host = host.substring(1);
+        }
+        return host.contains(".") ? host : null;
+    }
+
+    private static boolean isHostChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '.';
+    }
+}
@@ -0,0 +1,56 @@
+package burp.core;
+
+import burp.utils.SourceMapIndex;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the decoded "mappings" of the retrieved source maps, keyed by the generated script URL (without query string),
+ * so findings in minified bundles can be tied to their original source files.
+ * Indexes are evicted in LRU order once the total number of segments exceeds the budget.
+ */
+public class SourceMapRegistry {
+    private static SourceMapRegistry sourceMapRegistry = null;
+    // ~16 bytes per segment, so roughly 256 MB at most
+    private static final long MAX_SEGMENTS = 16_000_000L;
+    private final LinkedHashMap<String, SourceMapIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private long segmentsCount = 0;
+
+    public static synchronized SourceMapRegistry getInstance() {
+        if (sourceMapRegistry == null)
+            sourceMapRegistry = new SourceMapRegistry();
+        return sourceMapRegistry;
+    }
+
+    private SourceMapRegistry() {
+    }
+
+    public synchronized void put(String generatedScriptURL, SourceMapIndex sourceMapIndex) {
+        SourceMapIndex previous = indexes.put(generatedScriptURL, sourceMapIndex);
+        if (previous != null) {
+            segmentsCount -= previous.getSegmentsCount();
+        }
+        segmentsCount += sourceMapIndex.getSegmentsCount();
+
+        Iterator<Map.Entry<String, SourceMapIndex>> iterator = indexes.entrySet().iterator();
+        while (segmentsCount > MAX_SEGMENTS && iterator.hasNext()) {
+            Map.Entry<String, SourceMapIndex> eldest = iterator.next();
+            if (eldest.getValue() == sourceMapIndex) {
+                continue;
+            }
+            segmentsCount -= eldest.getValue().getSegmentsCount();
+            iterator.remove();
+        }
+    }
+
+    public synchronized SourceMapIndex get(String generatedScriptURL) {
+        return indexes.get(generatedScriptURL);
+    }
+
+    public synchronized void clear() {
+        indexes.clear();
+        segmentsCount = 0;
+    }
+}
@@ -1,5 +1,7 @@
 package burp.core;
 
+import burp.config.ExecutorServiceManager.Pool;
+
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.UUID;
@@ -89,13 +91,24 @@ enum TaskStatus {
 }
 
 enum TaskName {
-    SOURCE_MAPPER_ACTIVE_SCAN,
-    INLINE_JS_SOURCE_MAPPER,
-    SECRETS_SCAN,
-    CLOUD_URLS_SCAN,
-    DEPENDENCY_CONFUSION_SCAN,
-    DEPENDENCY_CONFUSION_SCAN_2,
-    SUBDOMAINS_SCAN,
-    STATIC_FILES_DUMPER,
-    ENDPOINTS_FINDER,
-}
\ No newline at end of file
+    SOURCE_MAPPER_ACTIVE_SCAN(Pool.IO),
+    INLINE_JS_SOURCE_MAPPER(Pool.CPU),
+    SECRETS_SCAN(Pool.CPU),
+    CLOUD_URLS_SCAN(Pool.CPU),
+    DEPENDENCY_CONFUSION_SCAN(Pool.IO),
+    DEPENDENCY_CONFUSION_SCAN_2(Pool.IO),
+    SUBDOMAINS_SCAN(Pool.CPU),
+    STATIC_FILES_DUMPER(Pool.IO),
+    ENDPOINTS_FINDER(Pool.CPU);
+
+    // Tasks waiting on the network (or the disk) must not hold the threads of the CPU-bound scans
+    private final Pool pool;
+
+    TaskName(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+}
@@ -1,57 +1,55 @@
 package burp.core.scanners;
 
 import burp.*;
+import burp.core.MapProbeCache;
+import burp.utils.FileUtils;
 import burp.utils.SourceMapper;
 import burp.utils.Utilities;
 
+import java.io.ByteArrayInputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.*;
 
 import static burp.BurpExtender.mStdErr;
+import static burp.BurpExtender.mStdOut;
 
 public class ActiveSourceMapper implements Runnable {
     private static final IBurpExtenderCallbacks callbacks = BurpExtender.getCallbacks();
     private static final IExtensionHelpers helpers = BurpExtender.getHelpers();
-    private URL jsMapURL;
-    private Path outputDirectory;
+    private static final MapProbeCache mapProbeCache = BurpExtender.getMapProbeCache();
+    private static final byte[] SOURCES_CONTENT = "sourcesContent".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MAPPINGS = "\"mappings\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SOURCE_MAPPING_URL = "sourceMappingURL=".getBytes(StandardCharsets.US_ASCII);
+    private static final String[] SOURCE_MAP_HEADERS = {"sourcemap:", "x-sourcemap:"};
+    // The map reference comment is expected at the end of the file, so only the tail of the response is searched
+    private static final int SOURCE_MAPPING_URL_SEARCH_WINDOW = 4096;
+    private final IHttpRequestResponse requestResponse;
+    private final URL jsURL;
+    private final Path outputDirectory;
     private final UUID taskUUID;
+    private boolean hasSourceMapReference = false; // set even if the referenced map is skipped (out of scope)
 
-    public ActiveSourceMapper(IHttpRequestResponse requestResponse, long currentTimestamp, UUID taskUUID) {
-        URL jsURL = helpers.analyzeRequest(requestResponse).getUrl();
+    public ActiveSourceMapper(IHttpRequestResponse requestResponse, UUID taskUUID) {
+        this.requestResponse = requestResponse;
+        this.jsURL = helpers.analyzeRequest(requestResponse).getUrl();
         this.taskUUID = taskUUID;
-
-        try {
-            this.jsMapURL = new URL(Utilities.appendURLPath(jsURL, ".map"));
-            this.outputDirectory = Paths.get(System.getProperty("user.home"))
-                    .resolve(".BurpSuite")
-                    .resolve("JS-Miner")
-                    .resolve(jsMapURL.getHost() + "-" + currentTimestamp);
-        } catch (MalformedURLException e) {
-            mStdErr.println("[-] MalformedURLException");
-        }
+        this.outputDirectory = FileUtils.getWorkspace(jsURL.getHost());
     }
 
     public void run() {
         try {
             BurpExtender.getTaskRepository().startTask(taskUUID);
-            IHttpRequestResponse newHTTPReqRes = callbacks.makeHttpRequest(Utilities.url2HttpService(jsMapURL), helpers.buildHttpRequest(jsMapURL));
-            // if 200 OK, add to sitemap & pass content to parse map files
-            if (helpers.analyzeResponse(newHTTPReqRes.getResponse()).getStatusCode() == 200
-                    && BurpExtender.isLoaded()
-            ) {
-                callbacks.addToSiteMap(newHTTPReqRes);
-                String response = new String(newHTTPReqRes.getResponse());
-                String responseBody = response.substring(helpers.analyzeRequest(newHTTPReqRes.getResponse()).getBodyOffset());
-                // Quick check to see if Response contains what we are looking for
-                if (responseBody.contains("sources") && responseBody.contains("sourcesContent")) {
-                    new SourceMapper(
-                            newHTTPReqRes,
-                            responseBody,
-                            outputDirectory
-                    );
+            Set<String> jsMapURLs = findSourceMapURLs();
+            // Guess the common location of the map file only when the script does not reference one
+            if (!hasSourceMapReference) {
+                jsMapURLs.add(Utilities.appendURLPath(jsURL, ".map"));
+            }
+            for (String jsMapURL : jsMapURLs) {
+                if (!BurpExtender.isLoaded() || fetchSourceMap(new URL(jsMapURL))) {
+                    break;
                 }
             }
             BurpExtender.getTaskRepository().completeTask(taskUUID);
@@ -63,4 +61,141 @@ public class ActiveSourceMapper implements Runnable {
             }
         }
     }
-}
\ No newline at end of file
+
+    /*
+     * Requests the map file, then (if 200 OK) adds it to the sitemap & passes its content to parse map files.
+     * Returns true if a source map was found.
+     * Probe results are cached per map URL: fresh results are reused without any request, and expired "found"
+     * results are re-validated with their ETag (a "304 Not Modified" means the map was already processed).
+     */
+    private boolean fetchSourceMap(URL jsMapURL) {
+        String cacheKey = jsMapURL.toString();
+        MapProbeCache.Entry cachedProbe = mapProbeCache.get(cacheKey);
+        if (cachedProbe != null && cachedProbe.isFresh()) {
+            return cachedProbe.getResult() == MapProbeCache.ProbeResult.FOUND;
+        }
+
+        byte[] request = helpers.buildHttpRequest(jsMapURL);
+        boolean isConditional = cachedProbe != null
+                && cachedProbe.getResult() == MapProbeCache.ProbeResult.FOUND
+                && cachedProbe.getETag() != null;
+        if (isConditional) {
+            List<String> headers = new ArrayList<>(helpers.analyzeRequest(request).getHeaders());
+            headers.add("If-None-Match: " + cachedProbe.getETag());
+            request = helpers.buildHttpMessage(headers, new byte[0]);
+        }
+
+        IHttpRequestResponse newHTTPReqRes = BurpExtender.getActiveRequestScheduler()
+                .makeHttpRequest(Utilities.url2HttpService(jsMapURL), request);
+        if (newHTTPReqRes == null || newHTTPReqRes.getResponse() == null) {
+            // Network failures are not cached
+            return false;
+        }
+        byte[] response = newHTTPReqRes.getResponse();
+        IResponseInfo responseInfo = helpers.analyzeResponse(response);
+        if (isConditional && responseInfo.getStatusCode() == 304) {
+            mapProbeCache.put(cacheKey, MapProbeCache.ProbeResult.FOUND, cachedProbe.getETag());
+            return true;
+        }
+        if (responseInfo.getStatusCode() != 200) {
+            // Only a missing map is cached: rate limits, server errors, auth and WAF blocks may not last
+            if (isNotFoundStatus(responseInfo.getStatusCode())) {
+                mapProbeCache.put(cacheKey, MapProbeCache.ProbeResult.NOT_FOUND, null);
+            }
+            return false;
+        }
+        callbacks.addToSiteMap(newHTTPReqRes);
+        int bodyOffset = responseInfo.getBodyOffset();
+        // Quick check to see if Response contains what we are looking for ("sourcesContent" implies "sources"),
+        // maps without sources content are still parsed for their "mappings"
+        if (helpers.indexOf(response, SOURCES_CONTENT, true, bodyOffset, response.length) == -1
+                && helpers.indexOf(response, MAPPINGS, true, bodyOffset, response.length) == -1) {
+            mapProbeCache.put(cacheKey, MapProbeCache.ProbeResult.NOT_A_MAP, null);
+            return false;
+        }
+        // Stream the body straight from the response bytes
+        new SourceMapper(
+                newHTTPReqRes,
+                new ByteArrayInputStream(response, bodyOffset, response.length - bodyOffset),
+                outputDirectory,
+                jsURL
+        );
+        mapProbeCache.put(cacheKey, MapProbeCache.ProbeResult.FOUND, getHeaderValue(responseInfo.getHeaders(), "etag:"));
+        return true;
+    }
+
+    /*
+     * Map locations referenced by the script itself: "SourceMap" / "X-SourceMap" response headers first,
+     * then the trailing "//# sourceMappingURL=" comment. References are resolved against the script URL,
+     * and out-of-scope references are skipped (logged only).
+     */
+    private Set<String> findSourceMapURLs() {
+        // URLs are kept as strings, as URL.equals() would resolve the host names
+        Set<String> jsMapURLs = new LinkedHashSet<>();
+        byte[] response = requestResponse.getResponse();
+        IResponseInfo responseInfo = helpers.analyzeResponse(response);
+
+        for (String sourceMapHeader : SOURCE_MAP_HEADERS) {
+            String headerValue = getHeaderValue(responseInfo.getHeaders(), sourceMapHeader);
+            if (headerValue != null) {
+                addSourceMapURL(jsMapURLs, headerValue);
+            }
+        }
+
+        int searchFrom = Math.max(responseInfo.getBodyOffset(), response.length - SOURCE_MAPPING_URL_SEARCH_WINDOW);
+        int lastMatch = -1;
+        int match = helpers.indexOf(response, SOURCE_MAPPING_URL, true, searchFrom, response.length);
+        while (match != -1) {
+            lastMatch = match;
+            match = helpers.indexOf(response, SOURCE_MAPPING_URL, true, match + SOURCE_MAPPING_URL.length, response.length);
+        }
+        if (lastMatch != -1) {
+            int start = lastMatch + SOURCE_MAPPING_URL.length;
+            int end = start;
+            while (end < response.length && !isSourceMappingURLTerminator(response[end])) {
+                end++;
+            }
+            addSourceMapURL(jsMapURLs, new String(response, start, end - start, StandardCharsets.UTF_8));
+        }
+        return jsMapURLs;
+    }
+
+    private void addSourceMapURL(Set<String> jsMapURLs, String reference) {
+        // Inline (base64) maps are handled by the passive "InlineSourceMapFiles" scan
+        if (reference.isEmpty() || reference.regionMatches(true, 0, "data:", 0, 5)) {
+            return;
+        }
+        try {
+            URL jsMapURL = new URL(jsURL, reference);
+            if (!jsMapURL.getProtocol().equals("http") && !jsMapURL.getProtocol().equals("https")) {
+                return;
+            }
+            hasSourceMapReference = true;
+            // e.g.: a third-party map (CDN) referenced by the script, no active requests outside the scope
+            if (!callbacks.isInScope(jsMapURL)) {
+                mStdOut.println("[*] Skipped out-of-scope source map: " + jsMapURL + " (referenced by " + jsURL + ")");
+                return;
+            }
+            jsMapURLs.add(jsMapURL.toString());
+        } catch (MalformedURLException e) {
+            mStdErr.println("[-] MalformedURLException");
+        }
+    }
+
+    private static String getHeaderValue(List<String> headers, String headerName) {
+        for (String header : headers) {
+            if (header.toLowerCase().startsWith(headerName)) {
+                return header.substring(headerName.length()).trim();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNotFoundStatus(short statusCode) {
+        return statusCode == 404 || statusCode == 410;
+    }
+
+    private static boolean isSourceMappingURLTerminator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '"' || b == '\'' || b == '*';
+    }
+}
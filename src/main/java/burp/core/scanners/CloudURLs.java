@@ -1,13 +1,14 @@
 package burp.core.scanners;
 
 import burp.*;
+import burp.utils.CloudProviderCatalog;
+import burp.utils.HostnameExtractor;
 import burp.utils.Utilities;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import com.google.re2j.Matcher;
 
 import static burp.utils.Constants.*;
 import static burp.utils.Utilities.appendFoundMatches;
@@ -35,11 +36,17 @@ public class CloudURLs implements Runnable {
         String responseString = new String(baseRequestResponse.getResponse());
         String responseBodyString = responseString.substring(helpers.analyzeResponse(baseRequestResponse.getResponse()).getBodyOffset());
 
-        Matcher cloudURLsMatcher = CLOUD_URLS_REGEX.matcher(responseBodyString);
-
-        while (cloudURLsMatcher.find() && BurpExtender.isLoaded()) {
-            uniqueMatches.add(cloudURLsMatcher.group().getBytes(StandardCharsets.UTF_8));
-            appendFoundMatches(cloudURLsMatcher.group(), uniqueMatchesSB);
+        // One hostname extraction pass, then one catalog look-up per hostname
+        CloudProviderCatalog cloudProviderCatalog = CloudProviderCatalog.getInstance();
+        for (String hostname : HostnameExtractor.extract(responseBodyString)) {
+            if (!BurpExtender.isLoaded()) {
+                break;
+            }
+            CloudProviderCatalog.CloudService cloudService = cloudProviderCatalog.classify(hostname);
+            if (cloudService != null) {
+                uniqueMatches.add(hostname.getBytes(StandardCharsets.UTF_8));
+                appendFoundMatches(hostname + " (" + cloudService + ")", uniqueMatchesSB);
+            }
         }
 
         reportFinding(baseRequestResponse, uniqueMatchesSB, uniqueMatches);
@@ -1,18 +1,16 @@
 package burp.core.scanners;
 
 import burp.*;
+import burp.utils.DependencyExtractor;
 import burp.utils.NPMPackage;
-import burp.utils.Utilities;
+import burp.utils.NPMRegistry;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.UUID;
-import com.google.re2j.Matcher;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import static burp.BurpExtender.mStdErr;
 import static burp.utils.Constants.*;
 import static burp.utils.Utilities.*;
 
@@ -21,12 +19,12 @@ public class DependencyConfusion implements Runnable {
     private static final IExtensionHelpers helpers = callbacks.getHelpers();
     private final IHttpRequestResponse baseRequestResponse;
     private final UUID taskUUID;
-    private final boolean findDependenciesWithRegex;
+    private final boolean extractDependencyBlocks;
 
-    public DependencyConfusion(IHttpRequestResponse baseRequestResponse, UUID taskUUID, boolean findDependenciesWithRegex) {
+    public DependencyConfusion(IHttpRequestResponse baseRequestResponse, UUID taskUUID, boolean extractDependencyBlocks) {
         this.baseRequestResponse = baseRequestResponse;
         this.taskUUID = taskUUID;
-        this.findDependenciesWithRegex = findDependenciesWithRegex;
+        this.extractDependencyBlocks = extractDependencyBlocks;
     }
 
     @Override
@@ -37,70 +35,51 @@ public class DependencyConfusion implements Runnable {
         List<byte[]> uniqueMatches = new ArrayList<>();
         StringBuilder uniqueMatchesSB = new StringBuilder();
 
-        String responseString = new String(baseRequestResponse.getResponse());
-        String responseBodyString = responseString.substring(helpers.analyzeResponse(baseRequestResponse.getResponse()).getBodyOffset());
-
-        // Removing unwanted spaces, new lines and so on, which might mislead matching our Regex
-        Matcher dependenciesListMatcher = EXTRACT_DEPENDENCIES_REGEX.matcher(responseBodyString
-                .replaceAll("\\s", "")
-                .replace("\t", "")
-                .replace("\r", "")
-                .replace("\n", ""));
+        byte[] response = baseRequestResponse.getResponse();
+        int bodyOffset = helpers.analyzeResponse(response).getBodyOffset();
 
         HashSet<NPMPackage> uniquePackageNames = new HashSet<>();
 
-        // Approach 1 to identify internal NPM packages based on the "EXTRACT_DEPENDENCIES_REGEX"
-        if (findDependenciesWithRegex) {
-            while (dependenciesListMatcher.find()) {
-                String dependencyList = dependenciesListMatcher.group(2);
-                String[] dependencyListArray = dependencyList.split(",");
-                for (String dependency : dependencyListArray) {
-                    // A new npm package that holds and validates name and version for later use
-                    NPMPackage npmPackage = new NPMPackage(dependency);
-
-                    // package name must be valid
-                    if (npmPackage.isNameValid()) {
-                        uniquePackageNames.add(npmPackage);
-                        uniqueMatches.add(npmPackage.getNameWithVersion().getBytes());
-                        appendFoundMatches(npmPackage.getNameWithVersion(), uniqueMatchesSB);
-                    }
+        // Approach 1 to identify internal NPM packages from "dependencies*: { ... }" blocks (tokenized in place)
+        if (extractDependencyBlocks) {
+            DependencyExtractor.extract(response, bodyOffset, response.length, npmPackage -> {
+                // package name must be valid
+                if (npmPackage.isNameValid() && uniquePackageNames.add(npmPackage)) {
+                    uniqueMatches.add(npmPackage.getNameWithVersion().getBytes());
+                    appendFoundMatches(npmPackage.getNameWithVersion(), uniqueMatchesSB);
                 }
-            }
+            });
         }
 
         // Approach 2 to identify internal NPM packages that were part of common node_modules URL path (e.g.: /node_modules/<pkg> )
-        Matcher fromNodeModulesPathMatcher = extractFromNodeModules.matcher(responseBodyString);
-        while (fromNodeModulesPathMatcher.find()) {
+        DependencyExtractor.extractFromNodeModules(response, bodyOffset, response.length, packageName -> {
             // The new npm package won't have a version, so passing "disclosedNameOnly" flag to handle it properly
-            NPMPackage npmPackage = new NPMPackage(fromNodeModulesPathMatcher.group(1), true);
+            NPMPackage npmPackage = new NPMPackage(packageName, true);
             // package name must be valid
             if (npmPackage.isNameValid()) {
                 uniquePackageNames.add(npmPackage);
                 uniqueMatches.add(npmPackage.getNameWithVersion().getBytes());
                 appendFoundMatches(npmPackage.getNameWithVersion(), uniqueMatchesSB);
             }
-        }
+        });
 
         // Get matches & report all dependencies as info
         if (uniqueMatchesSB.length() > 0) {
             List<int[]> allDependenciesMatches = getMatches(baseRequestResponse.getResponse(), uniqueMatches);
             reportDependencies(baseRequestResponse, uniqueMatchesSB.toString(), allDependenciesMatches);
 
-            // Loop each identified package and check for Dependency Confusion
-            for (NPMPackage npmPackage : uniquePackageNames) {
-                // Get markers of each single dependency with its version
-                List<int[]> depMatches = getMatches(baseRequestResponse.getResponse(), npmPackage.toString().getBytes());
+            NPMRegistry npmRegistry = NPMRegistry.getInstance();
+            if (npmRegistry.isReachable()) {
                 try {
-                    if (isConnectionOK()) {
-                        verifyDependencyConfusion(baseRequestResponse, npmPackage, depMatches);
-                        BurpExtender.getTaskRepository().completeTask(taskUUID);
-                    } else {
-                        // If connection failed, fail the task to allow re-scanning
-                        BurpExtender.getTaskRepository().failTask(taskUUID);
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
+                    verifyDependencyConfusion(baseRequestResponse, npmRegistry, uniquePackageNames);
+                    BurpExtender.getTaskRepository().completeTask(taskUUID);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    BurpExtender.getTaskRepository().failTask(taskUUID);
                 }
+            } else {
+                // If connection failed, fail the task to allow re-scanning
+                BurpExtender.getTaskRepository().failTask(taskUUID);
             }
         } else {
             // if no NPM package names were found, then task is completed
@@ -108,20 +87,6 @@ public class DependencyConfusion implements Runnable {
         }
     }
 
-    private static boolean isConnectionOK(){
-        try {
-            URL npmURL = new URL("https://www.npmjs.com/robots.txt");
-            IHttpRequestResponse npmJSReqRes = callbacks.makeHttpRequest(Utilities.url2HttpService(npmURL), helpers.buildHttpRequest(npmURL));
-            URL npmRegistryURL = new URL("https://registry.npmjs.org/");
-            IHttpRequestResponse npmRegistryReqRes = callbacks.makeHttpRequest(Utilities.url2HttpService(npmRegistryURL), helpers.buildHttpRequest(npmRegistryURL));
-
-            return npmJSReqRes.getResponse() != null && npmRegistryReqRes.getResponse() != null;
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        }
-        return false;
-    }
-
     private static void reportDependencies(IHttpRequestResponse baseRequestResponse, String dependenciesList, List<int[]> depMatches) {
         String findingTitle;
         String findingDetail;
@@ -141,8 +106,45 @@ public class DependencyConfusion implements Runnable {
         );
     }
 
-    // Verify if dependency is exploitable by querying npm js registry service
-    private static void verifyDependencyConfusion(IHttpRequestResponse baseRequestResponse, NPMPackage npmPackage, List<int[]> depMatches) throws IOException {
+    /*
+     * Verify if dependencies are exploitable by querying the npm registry.
+     * All lookups are dispatched at once (scopes are only looked up once), then each result is awaited in turn.
+     */
+    private static void verifyDependencyConfusion(IHttpRequestResponse baseRequestResponse, NPMRegistry npmRegistry, Set<NPMPackage> npmPackages) throws InterruptedException {
+        Map<NPMPackage, Future<Integer>> packageLookups = new HashMap<>();
+        Map<String, Future<Integer>> scopeLookups = new HashMap<>();
+        for (NPMPackage npmPackage : npmPackages) {
+            try {
+                if (!npmPackage.isVersionValidNPM()) {
+                    continue;
+                }
+                if (npmPackage.getName().startsWith("@")) {
+                    String organizationName = npmPackage.getOrgNameFromScopedDependency();
+                    if (!scopeLookups.containsKey(organizationName)) {
+                        scopeLookups.put(organizationName, npmRegistry.getScopeStatus(organizationName));
+                    }
+                } else {
+                    packageLookups.put(npmPackage, npmRegistry.getPackageStatus(npmPackage.getName()));
+                }
+            } catch (MalformedURLException e) {
+                mStdErr.println("[-] MalformedURLException");
+            }
+        }
+
+        for (NPMPackage npmPackage : npmPackages) {
+            // Get markers of each single dependency with its version
+            List<int[]> depMatches = getMatches(baseRequestResponse.getResponse(), npmPackage.toString().getBytes());
+            try {
+                verifyDependencyConfusion(baseRequestResponse, npmRegistry, npmPackage, packageLookups, scopeLookups, depMatches);
+            } catch (ExecutionException | MalformedURLException e) {
+                mStdErr.println("[-] Error verifying the package: " + npmPackage.getName());
+            }
+        }
+    }
+
+    private static void verifyDependencyConfusion(IHttpRequestResponse baseRequestResponse, NPMRegistry npmRegistry, NPMPackage npmPackage,
+                                                  Map<NPMPackage, Future<Integer>> packageLookups, Map<String, Future<Integer>> scopeLookups,
+                                                  List<int[]> depMatches) throws InterruptedException, ExecutionException, MalformedURLException {
         String findingTitle = null;
         String findingDetail = null;
         String severity = null;
@@ -156,28 +158,20 @@ public class DependencyConfusion implements Runnable {
             // 2. if package name starts with "@", then it's a scoped package.
             String organizationName = npmPackage.getOrgNameFromScopedDependency();
 
-            URL url = new URL("https://www.npmjs.com/org/" + organizationName);
-            IHttpRequestResponse httpRequestResponse = callbacks.makeHttpRequest(Utilities.url2HttpService(url), helpers.buildHttpRequest(url));
-
             // 2.1 scoped package with non-existing organization -> Most likely a valid issue
-            if (httpRequestResponse.getResponse() != null
-                    && helpers.analyzeResponse(httpRequestResponse.getResponse()).getStatusCode() == 404) {
+            if (scopeLookups.get(organizationName).get() == 404) {
                 // valid critical issue
                 findingTitle = "[JS Miner] Dependency (organization not found)";
-                findingDetail = "The following potentially exploitable dependency was found in a static file. The organization does not seem to be available, which indicates that it can be registered: " + url;
+                findingDetail = "The following potentially exploitable dependency was found in a static file. The organization does not seem to be available, which indicates that it can be registered: " + npmRegistry.getScopeURL(organizationName);
                 severity = SEVERITY_HIGH;
             }
         } else {
             // 3. Public NPM package
-            URL url = new URL("https://registry.npmjs.org/" + npmPackage.getName());
-            IHttpRequestResponse httpRequestResponse = callbacks.makeHttpRequest(Utilities.url2HttpService(url), helpers.buildHttpRequest(url));
-
             // 3.1 If package name does not exist -> Most likely a valid issue
-            if (httpRequestResponse.getResponse() != null
-                    && helpers.analyzeResponse(httpRequestResponse.getResponse()).getStatusCode() == 404) {
+            if (packageLookups.get(npmPackage).get() == 404) {
                 // valid critical issue
                 findingTitle = "[JS Miner] Dependency Confusion";
-                findingDetail = "The following potentially exploitable dependency was found in a static file. There was no entry for this package on the 'npm js' registry: " + url;
+                findingDetail = "The following potentially exploitable dependency was found in a static file. There was no entry for this package on the 'npm js' registry: " + npmRegistry.getPackageURL(npmPackage.getName());
                 severity = SEVERITY_HIGH;
             }
         }
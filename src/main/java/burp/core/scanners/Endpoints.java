@@ -4,16 +4,17 @@ import burp.BurpExtender;
 import burp.IBurpExtenderCallbacks;
 import burp.IExtensionHelpers;
 import burp.IHttpRequestResponse;
+import burp.utils.EndpointExtractor;
 import burp.utils.Utilities;
-import com.google.re2j.Matcher;
-import com.google.re2j.Pattern;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
+import static burp.BurpExtender.mStdErr;
 import static burp.utils.Constants.*;
 import static burp.utils.Utilities.appendFoundMatches;
 import static burp.utils.Utilities.sendNewIssue;
@@ -32,31 +33,44 @@ public class Endpoints implements Runnable {
     @Override
     public void run() {
         BurpExtender.getTaskRepository().startTask(taskUUID);
-        // For readability, reporting each method separately, maybe I'll combine them in the future into one burp issue.
-        endpointsFinder(ENDPOINTS_GET_REGEX, "get");
-        endpointsFinder(ENDPOINTS_POST_REGEX, "post");
-        endpointsFinder(ENDPOINTS_PUT_REGEX, "put");
-        endpointsFinder(ENDPOINTS_DELETE_REGEX, "delete");
-        endpointsFinder(ENDPOINTS_PATCH_REGEX, "patch");
-        BurpExtender.getTaskRepository().completeTask(taskUUID);
+        try {
+            findEndpoints();
+            BurpExtender.getTaskRepository().completeTask(taskUUID);
+        } catch (Exception e) {
+            BurpExtender.getTaskRepository().failTask(taskUUID);
+            mStdErr.println("[-] Endpoints finder exception: " + e.getClass().getSimpleName() + " ("
+                    + helpers.analyzeRequest(baseRequestResponse).getUrl() + ")");
+        }
     }
 
-    private void endpointsFinder(Pattern endpointsPattern, String method) {
-        // For reporting unique matches with markers
-        List<byte[]> uniqueMatches = new ArrayList<>();
-        StringBuilder uniqueMatchesSB = new StringBuilder();
-
+    private void findEndpoints() {
         String responseString = new String(baseRequestResponse.getResponse());
         String responseBodyString = responseString.substring(helpers.analyzeResponse(baseRequestResponse.getResponse()).getBodyOffset());
-        Matcher endpointsMatcher = endpointsPattern.matcher(responseBodyString);
 
-        while (BurpExtender.isLoaded() && endpointsMatcher.find() && endpointsMatcher.group(1).contains("/")
-        && !endpointsMatcher.group(1).contains("<") && !endpointsMatcher.group(1).contains(">") ) {
-            uniqueMatches.add(endpointsMatcher.group(1).getBytes(StandardCharsets.UTF_8));
-            appendFoundMatches(endpointsMatcher.group(1), uniqueMatchesSB);
+        // One pass over the file, added to the site-wide inventory, then the new endpoints are grouped by method
+        List<EndpointExtractor.Endpoint> newEndpoints = BurpExtender.getEndpointInventory().add(
+                helpers.analyzeRequest(baseRequestResponse).getUrl(),
+                Utilities.getRefererURL(baseRequestResponse),
+                EndpointExtractor.extract(responseBodyString));
+        Map<String, List<EndpointExtractor.Endpoint>> endpointsByMethod = new LinkedHashMap<>();
+        for (EndpointExtractor.Endpoint endpoint : newEndpoints) {
+            endpointsByMethod.computeIfAbsent(endpoint.getMethod(), method -> new ArrayList<>()).add(endpoint);
         }
 
-        reportFinding(baseRequestResponse, uniqueMatchesSB, uniqueMatches, method.toUpperCase(Locale.ENGLISH));
+        // For readability, reporting each method separately, maybe I'll combine them in the future into one burp issue.
+        for (Map.Entry<String, List<EndpointExtractor.Endpoint>> methodEndpoints : endpointsByMethod.entrySet()) {
+            if (!BurpExtender.isLoaded()) {
+                break;
+            }
+            // For reporting unique matches with markers
+            List<byte[]> uniqueMatches = new ArrayList<>();
+            StringBuilder uniqueMatchesSB = new StringBuilder();
+            for (EndpointExtractor.Endpoint endpoint : methodEndpoints.getValue()) {
+                uniqueMatches.add(endpoint.getRawUrl().getBytes(StandardCharsets.UTF_8));
+                appendFoundMatches(endpoint.getUrl(), uniqueMatchesSB);
+            }
+            reportFinding(baseRequestResponse, uniqueMatchesSB, uniqueMatches, methodEndpoints.getKey());
+        }
     }
 
     private static void reportFinding(IHttpRequestResponse baseRequestResponse, StringBuilder allMatchesSB, List<byte[]> uniqueMatches, String method) {
@@ -67,7 +81,7 @@ public class Endpoints implements Runnable {
             // report the issue
             sendNewIssue(baseRequestResponse,
                     "[JS Miner] API Endpoints (" + method + ")",
-                    "The following API endpoints were found in a static file.",
+                    "The following API endpoints were found in a static file (endpoints already found in other files are only listed in the endpoints inventory).",
                     allMatchesSB.toString(),
                     allMatchesMarkers,
                     SEVERITY_INFORMATION,
@@ -1,48 +1,94 @@
 package burp.core.scanners;
 
 import burp.*;
+import burp.utils.FileUtils;
 import burp.utils.SourceMapper;
-import burp.utils.Utilities;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Base64;
 import java.util.UUID;
-import com.google.re2j.Matcher;
-
-import static burp.utils.Constants.b64SourceMapRegex;
 
 public class InlineSourceMapFiles implements Runnable{
     private static final IBurpExtenderCallbacks callbacks = BurpExtender.getCallbacks();
     private static final IExtensionHelpers helpers = callbacks.getHelpers();
+    private static final byte[] SOURCE_MAPPING_URL_DATA = "sourceMappingURL=data".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON = "json".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64 = "base64,".getBytes(StandardCharsets.US_ASCII);
     private final IHttpRequestResponse baseRequestResponse;
     private final Path outputDirectory;
     private final UUID taskUUID;
 
-    public InlineSourceMapFiles(IHttpRequestResponse baseRequestResponse, UUID taskUUID, long timeStamp) {
+    public InlineSourceMapFiles(IHttpRequestResponse baseRequestResponse, UUID taskUUID) {
         this.baseRequestResponse = baseRequestResponse;
-        this.outputDirectory = Paths.get(System.getProperty("user.home"))
-                .resolve(".BurpSuite")
-                .resolve("JS-Miner")
-                .resolve(helpers.analyzeRequest(baseRequestResponse).getUrl().getHost() + "-" + timeStamp);
+        this.outputDirectory = FileUtils.getWorkspace(helpers.analyzeRequest(baseRequestResponse).getUrl().getHost());
         this.taskUUID = taskUUID;
     }
 
+    /*
+     * Looks for "sourceMappingURL=data:application/json;...base64,<payload>" directly in the response bytes.
+     * The payload range is decoded on the fly (Base64 stream decoder) into the streaming map parser,
+     * so the encoded / decoded map is never copied into a String.
+     */
     @Override
     public void run() {
         BurpExtender.getTaskRepository().startTask(taskUUID);
 
-        String responseString = new String(baseRequestResponse.getResponse());
-        String responseBodyString = responseString.substring(helpers.analyzeResponse(baseRequestResponse.getResponse()).getBodyOffset());
-
-        Matcher b64SourceMapperMatcher = b64SourceMapRegex.matcher(responseBodyString);
-
-        while (b64SourceMapperMatcher.find()) {
+        byte[] response = baseRequestResponse.getResponse();
+        int from = helpers.analyzeResponse(response).getBodyOffset();
+        int match;
+        while ((match = helpers.indexOf(response, SOURCE_MAPPING_URL_DATA, false, from, response.length)) != -1) {
+            from = match + SOURCE_MAPPING_URL_DATA.length;
+            // The media type and the payload are expected on the same line
+            int lineEnd = from;
+            while (lineEnd < response.length && response[lineEnd] != '\n' && response[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            int jsonIndex = helpers.indexOf(response, JSON, false, from, lineEnd);
+            if (jsonIndex == -1) {
+                continue;
+            }
+            int base64Index = helpers.indexOf(response, BASE64, false, jsonIndex + JSON.length, lineEnd);
+            if (base64Index == -1) {
+                continue;
+            }
+            int payloadStart = base64Index + BASE64.length;
+            int payloadEnd = payloadStart;
+            while (payloadEnd < lineEnd && isBase64Char(response[payloadEnd])) {
+                payloadEnd++;
+            }
+            from = payloadEnd;
+            int payloadLength = getDecodableLength(response, payloadStart, payloadEnd);
+            if (payloadLength == 0) {
+                continue;
+            }
             new SourceMapper(
                     baseRequestResponse,
-                    Utilities.b64Decode(b64SourceMapperMatcher.group(3)), // Base64 Decoded map File Data
-                    outputDirectory
+                    Base64.getDecoder().wrap(new ByteArrayInputStream(response, payloadStart, payloadLength)),
+                    outputDirectory,
+                    helpers.analyzeRequest(baseRequestResponse).getUrl()
             );
         }
         BurpExtender.getTaskRepository().completeTask(taskUUID);
     }
+
+    // Padding is only valid at the end, and a single dangling character cannot be decoded
+    private static int getDecodableLength(byte[] response, int start, int end) {
+        int length = end - start;
+        for (int i = start; i < end; i++) {
+            if (response[i] == '=') {
+                length = Math.min(i + 2, end) - start;
+                break;
+            }
+        }
+        if (length % 4 == 1) {
+            length--;
+        }
+        return length;
+    }
+
+    private static boolean isBase64Char(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '+' || b == '/' || b == '=';
+    }
 }
@@ -3,34 +3,37 @@ package burp.core.scanners;
 import burp.BurpExtender;
 import burp.IExtensionHelpers;
 import burp.IHttpRequestResponse;
+import burp.IResponseInfo;
 import burp.IScanIssue;
+import burp.core.DumpRun;
+import burp.utils.AsyncFileWriter;
 import burp.utils.CustomScanIssue;
 import burp.utils.FileUtils;
 import burp.utils.Utilities;
 
-import java.io.IOException;
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.*;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static burp.BurpExtender.mStdErr;
-import static burp.utils.Utilities.isDirEmpty;
 import static burp.utils.Utilities.trimURL;
 
 public class StaticFilesDumper implements Runnable {
     private static final IExtensionHelpers helpers = BurpExtender.getHelpers();
     private final IHttpRequestResponse baseRequestResponse;
-    private Path outputDirectory; // where we are going to store the source files
+    private final Path outputDirectory; // where we are going to store the source files
+    private final Path archivePath; // set in ZIP output mode (one archive per run)
     private final Path targetDirPath; // path with untrusted input
     private final UUID taskUUID;
-    private final boolean isLastIterator;
+    private final DumpRun dumpRun;
 
-    public StaticFilesDumper(IHttpRequestResponse baseRequestResponse, long currentTimestamp, UUID taskUUID, boolean isLastIterator) {
-        this.isLastIterator = isLastIterator;
+    public StaticFilesDumper(IHttpRequestResponse baseRequestResponse, DumpRun dumpRun, UUID taskUUID) {
+        this.dumpRun = dumpRun;
         this.baseRequestResponse = baseRequestResponse;
         this.taskUUID = taskUUID;
         URL jsURL = helpers.analyzeRequest(baseRequestResponse).getUrl();
@@ -41,53 +44,67 @@ public class StaticFilesDumper implements Runnable {
             e.printStackTrace();
         }
         this.targetDirPath = Utilities.urlToPath(requestURI);
-
-        try {
-            URL jsMapURL = new URL(Utilities.appendURLPath(jsURL, ".map"));
-            this.outputDirectory = Paths.get(System.getProperty("user.home"))
-                    .resolve(".BurpSuite")
-                    .resolve("JS-Miner")
-                    .resolve("Dump")
-                    .resolve(jsMapURL.getHost() + "-" + currentTimestamp);
-        } catch (MalformedURLException e) {
-            mStdErr.println("[-] MalformedURLException");
-        }
-
+        this.outputDirectory = FileUtils.getDumpWorkspace(jsURL.getHost());
+        this.archivePath = BurpExtender.getExtensionConfig().isArchiveStaticFiles()
+                ? FileUtils.getArchivePath(outputDirectory, dumpRun.getTimestamp())
+                : null;
     }
 
     @Override
     public void run() {
         BurpExtender.getTaskRepository().startTask(taskUUID);
-        // Get bytes of Response content
-        int bodyOffset = helpers.analyzeRequest(baseRequestResponse.getResponse()).getBodyOffset();
-        byte[] responseBytes = baseRequestResponse.getResponse();
-        byte[] responseBodyBytes = Arrays.copyOfRange(responseBytes, bodyOffset, responseBytes.length);
+        CompletableFuture<Boolean> isSaved = null;
+        try {
+            // Get bytes of Response content
+            byte[] responseBytes = baseRequestResponse.getResponse();
+            IResponseInfo responseInfo = helpers.analyzeResponse(responseBytes);
+            byte[] responseBodyBytes = Arrays.copyOfRange(responseBytes, responseInfo.getBodyOffset(), responseBytes.length);
+            AsyncFileWriter.ManifestRecord manifestRecord = new AsyncFileWriter.ManifestRecord(
+                    dumpRun.getManifestPath(),
+                    helpers.analyzeRequest(baseRequestResponse).getUrl().toString(),
+                    getContentType(responseInfo));
 
-        if (FileUtils.saveFile(targetDirPath.toString(), responseBodyBytes, outputDirectory)
-        && isLastIterator) {
-            // Report the issue once and when the last item is processed
-            sendStaticFilesDumperIssue();
-            // Clean-up the "tmp" directory if it's empty
-            Path tmpDir = outputDirectory.resolve("tmp");
-            if (isDirEmpty(tmpDir)) {
-                try {
-                    Files.delete(tmpDir);
-                } catch (NoSuchFileException x) {
-                    mStdErr.format("%s: no such" + " file or directory%n", tmpDir);
-                } catch (DirectoryNotEmptyException x) {
-                    mStdErr.format("%s not empty%n", tmpDir);
-                } catch (IOException x) {
-                    // File permission problems are caught here.
-                    mStdErr.println(x);
-                }
+            // Handed off to the file writer (the run reports the issue once every file was written)
+            if (archivePath != null) {
+                isSaved = AsyncFileWriter.getInstance().saveToArchive(targetDirPath.toString(), responseBodyBytes, archivePath, manifestRecord);
+            } else {
+                isSaved = AsyncFileWriter.getInstance().saveFile(targetDirPath.toString(), responseBodyBytes, outputDirectory, manifestRecord);
+            }
+            BurpExtender.getTaskRepository().completeTask(taskUUID);
+        } catch (Exception e) {
+            BurpExtender.getTaskRepository().failTask(taskUUID);
+            mStdErr.println("[-] StaticFilesDumper Exception.");
+        } finally {
+            if (isSaved == null) {
+                dumpRun.arrive(null, baseRequestResponse);
+            } else {
+                Path outputLocation = archivePath != null ? archivePath : outputDirectory;
+                // Off the writer thread, which completes the future (the last arrival hands off more work to it)
+                isSaved.whenCompleteAsync((saved, e) ->
+                        dumpRun.arrive(Boolean.TRUE.equals(saved) ? outputLocation : null, baseRequestResponse));
             }
         }
+    }
 
-        BurpExtender.getTaskRepository().completeTask(taskUUID);
+    /**
+     * Completion action of a dump run: one issue per workspace / archive at least one file was written to.
+     */
+    public static void reportDumpRun(DumpRun dumpRun) {
+        for (Map.Entry<Path, IHttpRequestResponse> output : dumpRun.getOutputs().entrySet()) {
+            sendStaticFilesDumperIssue(output.getValue(), output.getKey(), dumpRun.getManifestPath());
+        }
+    }
 
+    private static String getContentType(IResponseInfo responseInfo) {
+        for (String header : responseInfo.getHeaders()) {
+            if (header.toLowerCase().startsWith("content-type:")) {
+                return header.substring("content-type:".length()).trim();
+            }
+        }
+        return null;
     }
 
-    private void sendStaticFilesDumperIssue() {
+    private static void sendStaticFilesDumperIssue(IHttpRequestResponse baseRequestResponse, Path outputLocation, Path manifestPath) {
         IScanIssue scanIssue = null;
         try {
             scanIssue = new CustomScanIssue(
@@ -97,7 +114,9 @@ public class StaticFilesDumper implements Runnable {
                     "[JS Miner] Static Files Dumper",
                     "This issue was generated by \"" + BurpExtender.EXTENSION_NAME + "\" Burp extension.<br><br>" +
                             "Static files were extracted to the following location:<br><br>" +
-                            "<b>" + outputDirectory + "</b>",
+                            "<b>" + outputLocation + "</b><br><br>" +
+                            "The list of dumped files (URL, path, size, SHA-256, content type) is available in the following manifest:<br><br>" +
+                            "<b>" + manifestPath + "</b>",
                     null,
                     "Information",
                     "Certain");
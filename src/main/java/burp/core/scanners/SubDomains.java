@@ -1,14 +1,17 @@
 package burp.core.scanners;
 
 import burp.*;
+import burp.core.ScopeDomains;
+import burp.utils.DomainSuffixTrie;
+import burp.utils.HostnameExtractor;
 import burp.utils.Utilities;
 
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
-import com.google.re2j.Matcher;
-import com.google.re2j.Pattern;
 
 import static burp.utils.Constants.*;
 import static burp.utils.Utilities.appendFoundMatches;
@@ -32,7 +35,8 @@ public class SubDomains implements Runnable {
         String responseString = new String(baseRequestResponse.getResponse());
         String responseBodyString = responseString.substring(helpers.analyzeResponse(baseRequestResponse.getResponse()).getBodyOffset());
         String domainFromReferer = Utilities.getDomainFromReferer(baseRequestResponse);
-        String requestDomain = helpers.analyzeRequest(baseRequestResponse).getUrl().getHost();
+        URL requestURL = helpers.analyzeRequest(baseRequestResponse).getUrl();
+        String requestDomain = requestURL.getHost();
         String rootDomain;
         // Try to get caller domain from Referer header (to avoid matching cdn subdomains, ..etc.)
         if (domainFromReferer != null) {
@@ -42,24 +46,33 @@ public class SubDomains implements Runnable {
             rootDomain = Utilities.getRootDomain(requestDomain);
         }
 
-        if (rootDomain != null) {
-            // For reporting unique matches with markers
-            List<byte[]> uniqueMatches = new ArrayList<>();
-            StringBuilder uniqueMatchesSB = new StringBuilder();
+        // All in-scope root domains are searched in the same pass
+        ScopeDomains scopeDomains = BurpExtender.getScopeDomains();
+        scopeDomains.addSeenHost(requestURL);
+        DomainSuffixTrie<String> domainSuffixTrie = scopeDomains.getDomainSuffixTrie();
+        String rootDomainSuffix = rootDomain == null ? null : "." + rootDomain.toLowerCase(Locale.ROOT);
 
-            // Simple SubDomains Regex
-            Pattern subDomainsRegex = Pattern.compile("([a-z-0-9]+[.])+" + rootDomain, Pattern.CASE_INSENSITIVE);
-            Matcher matcherSubDomains = subDomainsRegex.matcher(responseBodyString);
-            while (matcherSubDomains.find() && BurpExtender.isLoaded()) {
-                if (
-                        Utilities.isMatchedDomainValid(matcherSubDomains.group(), rootDomain, requestDomain)
-                ) {
-                    uniqueMatches.add(helpers.urlDecode(matcherSubDomains.group()).getBytes(StandardCharsets.UTF_8));
-                    appendFoundMatches(helpers.urlDecode(matcherSubDomains.group()), uniqueMatchesSB);
-                }
+        // For reporting unique matches with markers
+        List<byte[]> uniqueMatches = new ArrayList<>();
+        StringBuilder uniqueMatchesSB = new StringBuilder();
+
+        String normalizedRequestDomain = requestDomain.toLowerCase(Locale.ROOT);
+        for (String hostname : HostnameExtractor.extract(responseBodyString)) {
+            if (!BurpExtender.isLoaded()) {
+                break;
+            }
+            String normalizedHostname = hostname.toLowerCase(Locale.ROOT);
+            String matchedRootDomain = domainSuffixTrie.match(normalizedHostname);
+            if (matchedRootDomain == null && rootDomainSuffix != null && normalizedHostname.endsWith(rootDomainSuffix)) {
+                matchedRootDomain = rootDomainSuffix.substring(1);
+            }
+            if (matchedRootDomain != null
+                    && Utilities.isMatchedDomainValid(normalizedHostname, matchedRootDomain, normalizedRequestDomain)) {
+                uniqueMatches.add(hostname.getBytes(StandardCharsets.UTF_8));
+                appendFoundMatches(hostname, uniqueMatchesSB);
             }
-            reportFinding(baseRequestResponse, uniqueMatchesSB, uniqueMatches);
         }
+        reportFinding(baseRequestResponse, uniqueMatchesSB, uniqueMatches);
         BurpExtender.getTaskRepository().completeTask(taskUUID);
     }
 
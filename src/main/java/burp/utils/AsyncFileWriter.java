@@ -0,0 +1,391 @@
+package burp.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * Dedicated writer stage for the files saved by the extension (reconstructed sources, static files dumps).
+ * Scanner threads only hand off the bytes to a bounded queue (blocking only when the queue is full);
+ * a single thread drains the queue in batches, and remembers the directories it already created.
+ * Contents are stored once in the BlobStore, and workspace files are hard links to the blobs; saving a file that was
+ * already dumped with the same content writes nothing.
+ * In archive mode, files are streamed (sequentially, by the same thread) into ZIP archives instead.
+ * Files can also be recorded in a JSONL manifest (one line per persisted file), flushed after every batch
+ * so it can be consumed while the dump is running.
+ */
+public class AsyncFileWriter {
+    private static AsyncFileWriter asyncFileWriter = null;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 128;
+    // Poison pill, stops the writer thread
+    private static final WriteRequest SHUTDOWN = new WriteRequest(RequestType.SHUTDOWN, null, null, null, null, null);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<WriteRequest> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Only accessed by the writer thread
+    private final Set<Path> createdDirectories = new HashSet<>();
+    private final Map<Path, ArchiveWriter> openArchives = new HashMap<>();
+    private final Map<Path, Writer> openManifests = new HashMap<>();
+    private final BlobStore blobStore = new BlobStore(FileUtils.getBlobsDirectory());
+    private volatile boolean running = true;
+
+    private enum RequestType {
+        FILE,
+        ARCHIVE_ENTRY,
+        CLOSE_ARCHIVE,
+        CLOSE_MANIFEST,
+        FLUSH,
+        SHUTDOWN
+    }
+
+    public static synchronized AsyncFileWriter getInstance() {
+        if (asyncFileWriter == null)
+            asyncFileWriter = new AsyncFileWriter();
+        return asyncFileWriter;
+    }
+
+    private AsyncFileWriter() {
+        Thread writerThread = new Thread(this::processQueue, "JS-Miner-File-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public CompletableFuture<Boolean> saveFile(String sourceFilePath, byte[] data, Path outputDirPath) {
+        return saveFile(sourceFilePath, data, outputDirPath, null);
+    }
+
+    /**
+     * @param manifestRecord Records the persisted file in a manifest (null for none)
+     * @return A future completed (by the writer thread) with true once the file was written, false if it failed
+     */
+    public CompletableFuture<Boolean> saveFile(String sourceFilePath, byte[] data, Path outputDirPath, ManifestRecord manifestRecord) {
+        return enqueueWrite(new WriteRequest(RequestType.FILE, sourceFilePath, data, outputDirPath, manifestRecord, new CompletableFuture<>()));
+    }
+
+    public CompletableFuture<Boolean> saveToArchive(String sourceFilePath, byte[] data, Path archivePath) {
+        return saveToArchive(sourceFilePath, data, archivePath, null);
+    }
+
+    /**
+     * Adds the file to the ZIP archive (created on the first entry). Entry names are sanitized like file paths.
+     *
+     * @param manifestRecord Records the persisted entry in a manifest (null for none)
+     * @return A future completed (by the writer thread) with true once the entry was written, false if it failed
+     */
+    public CompletableFuture<Boolean> saveToArchive(String sourceFilePath, byte[] data, Path archivePath, ManifestRecord manifestRecord) {
+        return enqueueWrite(new WriteRequest(RequestType.ARCHIVE_ENTRY, sourceFilePath, data, archivePath, manifestRecord, new CompletableFuture<>()));
+    }
+
+    /**
+     * Finishes the ZIP archive once its queued entries were written.
+     * Entries added afterwards go to a new archive (e.g.: "archive_1.zip").
+     */
+    public void closeArchive(Path archivePath) {
+        enqueue(new WriteRequest(RequestType.CLOSE_ARCHIVE, null, null, archivePath, null, null));
+    }
+
+    /**
+     * Closes the manifest once its queued files were written.
+     */
+    public void closeManifest(Path manifestPath) {
+        enqueue(new WriteRequest(RequestType.CLOSE_MANIFEST, null, null, manifestPath, null, null));
+    }
+
+    /**
+     * @return A future completed once every file queued before this call was written.
+     * It is completed by the writer thread: slow dependent actions must run asynchronously (e.g.: "thenRunAsync").
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        if (!enqueue(new WriteRequest(RequestType.FLUSH, null, null, null, null, completion))) {
+            completion.complete(false);
+        }
+        return completion.thenAccept(isFlushed -> {
+        });
+    }
+
+    /**
+     * Writes the already queued files, closes the open archives, then stops the writer thread.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            queue.put(SHUTDOWN);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Boolean> enqueueWrite(WriteRequest writeRequest) {
+        if (!enqueue(writeRequest)) {
+            writeRequest.completion.complete(false);
+        }
+        return writeRequest.completion;
+    }
+
+    private boolean enqueue(WriteRequest writeRequest) {
+        if (!running) {
+            return false;
+        }
+        try {
+            queue.put(writeRequest);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void processQueue() {
+        List<WriteRequest> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                for (WriteRequest writeRequest : batch) {
+                    switch (writeRequest.type) {
+                        case FILE:
+                            writeRequest.completion.complete(write(writeRequest));
+                            break;
+                        case ARCHIVE_ENTRY:
+                            writeRequest.completion.complete(writeArchiveEntry(writeRequest));
+                            break;
+                        case CLOSE_ARCHIVE:
+                            closeArchive(openArchives.remove(writeRequest.outputPath));
+                            break;
+                        case CLOSE_MANIFEST:
+                            closeManifest(writeRequest.outputPath, openManifests.remove(writeRequest.outputPath));
+                            break;
+                        case FLUSH:
+                            flushManifests();
+                            writeRequest.completion.complete(true);
+                            break;
+                        case SHUTDOWN:
+                            return;
+                    }
+                }
+                batch.clear();
+                flushManifests();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (ArchiveWriter archiveWriter : openArchives.values()) {
+                closeArchive(archiveWriter);
+            }
+            openArchives.clear();
+            for (Map.Entry<Path, Writer> manifest : openManifests.entrySet()) {
+                closeManifest(manifest.getKey(), manifest.getValue());
+            }
+            openManifests.clear();
+            // Do not leave anyone waiting for files that will never be written
+            for (WriteRequest writeRequest : queue) {
+                if (writeRequest.completion != null) {
+                    writeRequest.completion.complete(false);
+                }
+            }
+        }
+    }
+
+    private boolean write(WriteRequest writeRequest) {
+        Path filePath = FileUtils.secureFile(writeRequest.sourceFilePath, writeRequest.outputPath);
+        try {
+            String hash = blobStore.hash(writeRequest.data);
+            Path blobPath = blobStore.store(hash, writeRequest.data);
+            createParentDirectories(filePath);
+            try {
+                blobStore.link(blobPath, writeRequest.data, filePath);
+            } catch (NoSuchFileException e) {
+                // The cached directory was removed in the meantime
+                createdDirectories.remove(filePath.getParent());
+                createParentDirectories(filePath);
+                blobStore.link(blobPath, writeRequest.data, filePath);
+            } catch (FileAlreadyExistsException e) {
+                // If the content is the same, it was already dumped (e.g.: by a previous run)
+                if (!blobStore.isSameContent(filePath, blobPath, writeRequest.data)) {
+                    // Same name, different content: "existingFile_<hash>.js" (if that exists too, it has the same content)
+                    filePath = FileUtils.appendToFileName(filePath, "_" + hash.substring(0, 8));
+                    try {
+                        blobStore.link(blobPath, writeRequest.data, filePath);
+                    } catch (FileAlreadyExistsException ignored) {
+                    }
+                }
+            }
+            recordInManifest(writeRequest, filePath.toString(), hash);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            mStdErr.println("[-] Error saving the file - saveFile " + e.getClass().getSimpleName() + ".");
+            return false;
+        }
+    }
+
+    private boolean writeArchiveEntry(WriteRequest writeRequest) {
+        try {
+            ArchiveWriter archiveWriter = openArchives.get(writeRequest.outputPath);
+            if (archiveWriter == null) {
+                archiveWriter = new ArchiveWriter(writeRequest.outputPath);
+                openArchives.put(writeRequest.outputPath, archiveWriter);
+            }
+            String entryName = archiveWriter.write(FileUtils.secureEntryName(writeRequest.sourceFilePath), writeRequest.data);
+            if (writeRequest.manifestRecord != null) {
+                recordInManifest(writeRequest, archiveWriter.archivePath + "!/" + entryName, blobStore.hash(writeRequest.data));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            mStdErr.println("[-] Error saving the file - saveToArchive " + e.getClass().getSimpleName() + ".");
+            return false;
+        }
+    }
+
+    private void recordInManifest(WriteRequest writeRequest, String path, String hash) throws IOException {
+        ManifestRecord manifestRecord = writeRequest.manifestRecord;
+        if (manifestRecord == null) {
+            return;
+        }
+        Writer manifestWriter = openManifests.get(manifestRecord.manifestPath);
+        if (manifestWriter == null) {
+            Files.createDirectories(manifestRecord.manifestPath.getParent());
+            manifestWriter = Files.newBufferedWriter(manifestRecord.manifestPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            openManifests.put(manifestRecord.manifestPath, manifestWriter);
+        }
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("url", manifestRecord.url);
+        line.put("path", path);
+        line.put("size", writeRequest.data.length);
+        line.put("sha256", hash);
+        line.put("contentType", manifestRecord.contentType);
+        manifestWriter.write(objectMapper.writeValueAsString(line));
+        manifestWriter.write('\n');
+    }
+
+    private void flushManifests() {
+        for (Writer manifestWriter : openManifests.values()) {
+            try {
+                manifestWriter.flush();
+            } catch (IOException e) {
+                mStdErr.println("[-] Error writing the manifest.");
+            }
+        }
+    }
+
+    private static void closeManifest(Path manifestPath, Writer manifestWriter) {
+        if (manifestWriter == null) {
+            return;
+        }
+        try {
+            manifestWriter.close();
+        } catch (IOException e) {
+            mStdErr.println("[-] Error closing the manifest: " + manifestPath);
+        }
+    }
+
+    private static void closeArchive(ArchiveWriter archiveWriter) {
+        if (archiveWriter == null) {
+            return;
+        }
+        try {
+            archiveWriter.close();
+        } catch (IOException e) {
+            mStdErr.println("[-] Error closing the archive: " + archiveWriter.archivePath);
+        }
+    }
+
+    private void createParentDirectories(Path filePath) throws IOException {
+        Path parent = filePath.getParent();
+        if (parent != null && !createdDirectories.contains(parent)) {
+            Files.createDirectories(parent);
+            createdDirectories.add(parent);
+        }
+    }
+
+    private static class ArchiveWriter {
+        private final Path archivePath;
+        private final ZipOutputStream zipOutputStream;
+        private final Set<String> entryNames = new HashSet<>();
+
+        ArchiveWriter(Path requestedPath) throws IOException {
+            Files.createDirectories(requestedPath.getParent());
+            // Never overwrite a previous archive
+            Path path = requestedPath;
+            for (int i = 1; Files.exists(path); i++) {
+                path = FileUtils.appendToFileName(requestedPath, "_" + i);
+            }
+            this.archivePath = path;
+            this.zipOutputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+
+        // Returns the (de-duplicated) entry name
+        String write(String entryName, byte[] data) throws IOException {
+            String uniqueEntryName = entryName;
+            for (int i = 1; !entryNames.add(uniqueEntryName); i++) {
+                uniqueEntryName = FileUtils.appendToFileName(entryName, "_" + i);
+            }
+            zipOutputStream.putNextEntry(new ZipEntry(uniqueEntryName));
+            zipOutputStream.write(data);
+            zipOutputStream.closeEntry();
+            return uniqueEntryName;
+        }
+
+        void close() throws IOException {
+            zipOutputStream.close();
+        }
+    }
+
+    /**
+     * Manifest line details that are known by the caller (the path, size and hash are added by the writer).
+     */
+    public static class ManifestRecord {
+        private final Path manifestPath;
+        private final String url;
+        private final String contentType;
+
+        public ManifestRecord(Path manifestPath, String url, String contentType) {
+            this.manifestPath = manifestPath;
+            this.url = url;
+            this.contentType = contentType;
+        }
+    }
+
+    private static class WriteRequest {
+        private final RequestType type;
+        private final String sourceFilePath;
+        private final byte[] data;
+        private final Path outputPath; // output directory, archive or manifest
+        private final ManifestRecord manifestRecord;
+        private final CompletableFuture<Boolean> completion; // write outcome (files, archive entries), or flush reached
+
+        WriteRequest(RequestType type, String sourceFilePath, byte[] data, Path outputPath,
+                     ManifestRecord manifestRecord, CompletableFuture<Boolean> completion) {
+            this.type = type;
+            this.sourceFilePath = sourceFilePath;
+            this.data = data;
+            this.outputPath = outputPath;
+            this.manifestRecord = manifestRecord;
+            this.completion = completion;
+        }
+    }
+}
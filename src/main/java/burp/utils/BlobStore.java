@@ -0,0 +1,99 @@
+package burp.utils;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Content-addressed store for the saved files: each distinct content is written once as ".blobs/ab/abcdef..."
+ * (SHA-256 of the content). Workspace files are hard links to the read-only blob, so the same content saved under
+ * many names (or in many workspaces) is stored on disk once. Where linking is not possible (e.g.: the workspace is
+ * on another file system), the workspace file is a copy. Not thread-safe, it is only used by the file writer thread.
+ */
+class BlobStore {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path blobsDirectory;
+    private final MessageDigest messageDigest;
+    // Blobs written or verified by this writer
+    private final Set<String> knownBlobs = new HashSet<>();
+
+    BlobStore(Path blobsDirectory) {
+        this.blobsDirectory = blobsDirectory;
+        try {
+            this.messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String hash(byte[] data) {
+        byte[] digest = messageDigest.digest(data);
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Writes the blob unless it is already stored. Existing blobs are read-only and named after their hash, so they
+     * are not read again: only their size is checked (a truncated blob, e.g.: after a crash, is written again).
+     *
+     * @return The blob path
+     */
+    Path store(String hash, byte[] data) throws IOException {
+        Path blobPath = blobsDirectory.resolve(hash.substring(0, 2)).resolve(hash);
+        if (knownBlobs.contains(hash)) {
+            return blobPath;
+        }
+        if (!Files.exists(blobPath) || Files.size(blobPath) != data.length) {
+            Files.createDirectories(blobPath.getParent());
+            Path tempPath = blobPath.resolveSibling(hash + ".tmp");
+            Files.write(tempPath, data);
+            // A read-only blob can not be replaced on every platform
+            blobPath.toFile().setWritable(true);
+            // Blobs must never be seen half-written
+            Files.move(tempPath, blobPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            blobPath.toFile().setReadOnly();
+        }
+        knownBlobs.add(hash);
+        return blobPath;
+    }
+
+    /**
+     * Creates the workspace file as a hard link to the blob, or as a copy of the content if linking is not possible.
+     *
+     * @throws FileAlreadyExistsException if the file already exists
+     * @throws NoSuchFileException        if the parent directory does not exist
+     */
+    void link(Path blobPath, byte[] data, Path filePath) throws IOException {
+        try {
+            Files.createLink(filePath, blobPath);
+        } catch (FileAlreadyExistsException | NoSuchFileException e) {
+            throw e;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.write(filePath, data, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * @return true if the workspace file already holds the blob's content (a link to it, or a copy)
+     */
+    boolean isSameContent(Path filePath, Path blobPath, byte[] data) throws IOException {
+        if (Files.isSameFile(filePath, blobPath)) {
+            return true;
+        }
+        return Files.size(filePath) == data.length && MessageDigest.isEqual(Files.readAllBytes(filePath), data);
+    }
+}
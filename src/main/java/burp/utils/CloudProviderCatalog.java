@@ -0,0 +1,79 @@
+package burp.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * Catalog of the cloud provider domains (bundled "cloud_providers.csv": domain, provider, service), loaded once into
+ * a DomainSuffixTrie so classifying a hostname costs one walk over its labels, whatever the size of the catalog is.
+ */
+public class CloudProviderCatalog {
+    private static CloudProviderCatalog cloudProviderCatalog = null;
+    private static final String CATALOG_RESOURCE = "/cloud_providers.csv";
+
+    private final DomainSuffixTrie<CloudService> domainSuffixTrie = new DomainSuffixTrie<>();
+
+    public static class CloudService {
+        private final String provider;
+        private final String service;
+
+        CloudService(String provider, String service) {
+            this.provider = provider;
+            this.service = service;
+        }
+
+        public String getProvider() {
+            return provider;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+        @Override
+        public String toString() {
+            return provider + " " + service;
+        }
+    }
+
+    public static synchronized CloudProviderCatalog getInstance() {
+        if (cloudProviderCatalog == null)
+            cloudProviderCatalog = new CloudProviderCatalog();
+        return cloudProviderCatalog;
+    }
+
+    private CloudProviderCatalog() {
+        try (InputStream inputStream = CloudProviderCatalog.class.getResourceAsStream(CATALOG_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IOException("Missing resource " + CATALOG_RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", 3);
+                if (fields.length == 3) {
+                    domainSuffixTrie.add(fields[0].trim(), new CloudService(fields[1].trim(), fields[2].trim()));
+                }
+            }
+        } catch (IOException e) {
+            mStdErr.println("[-] Could not load the cloud providers catalog.");
+        }
+    }
+
+    /**
+     * @return The cloud service the hostname belongs to, or null
+     */
+    public CloudService classify(String hostname) {
+        return domainSuffixTrie.match(hostname.toLowerCase(Locale.ROOT));
+    }
+}
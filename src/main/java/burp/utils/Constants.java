@@ -10,6 +10,22 @@ public class Constants {
 
     public static final String SETTING_VERBOSE_LOGGING = "verboseLoggingFlag";
     public static final String SETTING_BURP_PASSIVE = "burpPassiveFlag";
+    public static final String SETTING_NPM_REGISTRY_URL = "npmRegistryURL";
+    public static final String SETTING_OFFLINE_DEPENDENCY_CONFUSION = "offlineDependencyConfusionFlag";
+    public static final String SETTING_NPM_NAME_INDEX_PATH = "npmNameIndexPath";
+    public static final String SETTING_MAP_PROBE_CACHE_TTL = "mapProbeCacheTTLHours";
+    public static final String SETTING_PERSIST_MAP_PROBE_CACHE = "persistMapProbeCacheFlag";
+    public static final String SETTING_MAP_PROBE_CACHE = "mapProbeCache";
+    public static final String SETTING_REQUESTS_PER_SECOND_PER_HOST = "requestsPerSecondPerHost";
+    public static final String SETTING_MAX_IN_FLIGHT_REQUESTS = "maxInFlightRequests";
+    public static final String SETTING_THREAD_POOL_SIZE = "threadPoolSize";
+    public static final String SETTING_IO_THREAD_POOL_SIZE = "ioThreadPoolSize";
+    public static final String SETTING_SCAN_RECONSTRUCTED_SOURCES = "scanReconstructedSources";
+    public static final String SETTING_SAVE_RECONSTRUCTED_SOURCES = "saveReconstructedSources";
+    public static final String SETTING_ARCHIVE_STATIC_FILES = "archiveStaticFiles";
+    public static final String SETTING_ARCHIVE_RECONSTRUCTED_SOURCES = "archiveReconstructedSources";
+
+    public static final String DEFAULT_NPM_REGISTRY_URL = "https://registry.npmjs.org/";
 
     // Logging constants
     public static final String LOG_FORMAT = "%-15s%-15s%-40s%-40s%n";
@@ -19,19 +35,6 @@ public class Constants {
     public static final String WHITE_SPACES = "(\\s*)";
     public static final String REGEX_QUOTES = "['\"`]";
 
-    public static final Pattern CLOUD_URLS_REGEX = Pattern.compile("([\\w]+[.]){1,10}" + // get up to 10 subdomain levels
-                    "(s3.amazonaws.com|rds.amazonaws.com|cache.amazonaws.com|" + // AWS
-                    "blob.core.windows.net|onedrive.live.com|1drv.com|" + // Azure
-                    "storage.googleapis.com|storage.cloud.google.com|storage-download.googleapis.com|content-storage-upload.googleapis.com|content-storage-download.googleapis.com|" + // Google
-                    "cloudfront.net|" +
-                    "digitaloceanspaces.com|" +
-                    "oraclecloud.com|" +
-                    "aliyuncs.com|" + // Ali baba
-                    "firebaseio.com|" + // Firebase
-                    "rackcdn.com|" +
-                    "objects.cdn.dream.io|objects-us-west-1.dream.io)",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
     // Inspired by: https://github.com/nsonaniya2010/SubDomainizer/blob/master/SubDomainizer.py
     public static final Pattern SECRETS_REGEX = Pattern.compile(("['\"`]?(\\w*)" + // Starts with a quote then a word / white spaces
                     WHITE_SPACES +
@@ -66,36 +69,6 @@ public class Constants {
     public static final Pattern HTTP_BASIC_AUTH_SECRETS = Pattern.compile("Authorization.{0,5}Basic(\\s*)([A-Za-z0-9+/=]+)",
             Pattern.MULTILINE);
 
-    public static final Pattern b64SourceMapRegex = Pattern.compile("sourceMappingURL=data(.*)json(.*)base64,((?:[a-z0-9+/]{4})*(?:[a-z0-9+/]{2}==|[a-z0-9+/]{3}=)?)(\\\\n)?",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    public static final Pattern EXTRACT_DEPENDENCIES_REGEX = Pattern.compile((
-                    "dependencies" + // we don't care about prefix. Once we find this, just check what comes next
-                            "([a-z-_0-9])*" + // some suffix may be (e.g.: dependenciesDev1_2-3)
-                            REGEX_QUOTES + // closing quote
-                            ":" + // mandatory colon
-                            "\\{" + // mandatory opening curly brackets
-                            "(.*?)" +   // our dependencies list -> matcher.group(2)
-                            "}"     // mandatory closing curly brackets
-            ),
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    public static final Pattern extractFromNodeModules = Pattern.compile(("/node_modules/(@?[a-z-_.0-9]+)/"));
-
-    public static final Pattern ENDPOINTS_GET_REGEX = Pattern.compile("\\.[$]?get\\(['\"`]?(.*?)['\"`]?\\)",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    public static final Pattern ENDPOINTS_POST_REGEX = Pattern.compile("\\.[$]?post\\(['\"`]?(.*?)['\"`]?\\)",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    public static final Pattern ENDPOINTS_PUT_REGEX = Pattern.compile("\\.[$]?put\\(['\"`]?(.*?)['\"`]?\\)",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    public static final Pattern ENDPOINTS_DELETE_REGEX = Pattern.compile("\\.[$]?delete\\(['\"`]?(.*?)['\"`]?\\)",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    public static final Pattern ENDPOINTS_PATCH_REGEX = Pattern.compile("\\.[$]?patch\\(['\"`]?(.*?)['\"`]?\\)",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
 
     // Scan issues related constants
     public static final String SCAN_ISSUE_HEADER = "This issue was generated by \"" + BurpExtender.EXTENSION_NAME + "\" Burp extension.<br><br>";
@@ -0,0 +1,291 @@
+package burp.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight JS/JSON object-literal tokenizer used by the "dependency confusion" scan.
+ * It finds "dependencies*: { ... }" blocks directly in the HTTP response bytes and yields their name/version pairs,
+ * without copying or normalizing the body first.
+ * <p>
+ * Keys can be quoted or bare identifiers, nested objects/arrays are skipped, and JSON embedded in JS strings
+ * (e.g.: {\"dependencies\":{\"pkg\":\"1.0.0\"}}) is supported as well.
+ * It also finds the package names disclosed in "/node_modules/<pkg>/" paths, over the same bytes.
+ */
+public final class DependencyExtractor {
+    private static final byte[] KEYWORD = "dependencies".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NODE_MODULES_PATH = "/node_modules/".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] data;
+    private final int end;
+    private final Consumer<NPMPackage> consumer;
+    private int pos;
+    private boolean escapedQuotes; // true when the block is part of a JS string (quotes are escaped: \")
+
+    private DependencyExtractor(byte[] data, int start, int end, Consumer<NPMPackage> consumer) {
+        this.data = data;
+        this.pos = start;
+        this.end = end;
+        this.consumer = consumer;
+    }
+
+    /**
+     * @param data     The HTTP response bytes
+     * @param start    Offset to start from (e.g.: the body offset)
+     * @param end      Offset to stop at (exclusive)
+     * @param consumer Receives every dependency found in a "dependencies" block
+     */
+    public static void extract(byte[] data, int start, int end, Consumer<NPMPackage> consumer) {
+        new DependencyExtractor(data, start, end, consumer).run();
+    }
+
+    /**
+     * Finds the package names in "/node_modules/&lt;pkg&gt;/" paths ("@?[a-z-_.0-9]+" names; for a scoped package, the scope).
+     *
+     * @param data     The HTTP response bytes
+     * @param start    Offset to start from (e.g.: the body offset)
+     * @param end      Offset to stop at (exclusive)
+     * @param consumer Receives every package name found (duplicates included)
+     */
+    public static void extractFromNodeModules(byte[] data, int start, int end, Consumer<String> consumer) {
+        int last = end - NODE_MODULES_PATH.length;
+        int i = start;
+        while (i <= last) {
+            if (!startsWith(data, i, NODE_MODULES_PATH)) {
+                i++;
+                continue;
+            }
+            int nameStart = i + NODE_MODULES_PATH.length;
+            int nameEnd = nameStart < end && data[nameStart] == '@' ? nameStart + 1 : nameStart;
+            while (nameEnd < end && isPackageNameChar(data[nameEnd])) {
+                nameEnd++;
+            }
+            boolean hasName = nameEnd > nameStart && data[nameEnd - 1] != '@';
+            if (hasName && nameEnd < end && data[nameEnd] == '/') {
+                consumer.accept(new String(data, nameStart, nameEnd - nameStart, StandardCharsets.US_ASCII));
+                // Matches do not overlap (the trailing "/" is part of the match)
+                i = nameEnd + 1;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        for (int k = 0; k < prefix.length; k++) {
+            if (data[offset + k] != prefix[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPackageNameChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '-' || b == '_' || b == '.';
+    }
+
+    private void run() {
+        while (findKeyword()) {
+            int blockStart = pos;
+            if (!parseDependenciesBlock()) {
+                // Not a dependencies block after all, keep searching right after the keyword
+                pos = blockStart;
+            }
+        }
+    }
+
+    // Moves "pos" right after the next (case-insensitive) "dependencies" keyword
+    private boolean findKeyword() {
+        int last = end - KEYWORD.length;
+        for (int i = pos; i <= last; i++) {
+            if ((data[i] | 0x20) != KEYWORD[0]) {
+                continue;
+            }
+            int k = 1;
+            while (k < KEYWORD.length && (data[i + k] | 0x20) == KEYWORD[k]) {
+                k++;
+            }
+            if (k == KEYWORD.length) {
+                pos = i + KEYWORD.length;
+                return true;
+            }
+        }
+        pos = end;
+        return false;
+    }
+
+    private boolean parseDependenciesBlock() {
+        // some suffix may be (e.g.: dependenciesDev1_2-3)
+        while (pos < end && isKeySuffixChar(data[pos])) {
+            pos++;
+        }
+        // optional closing quote of the key
+        escapedQuotes = pos < end && data[pos] == '\\';
+        if (escapedQuotes) {
+            pos++;
+        }
+        if (pos < end && isQuote(data[pos])) {
+            pos++;
+        } else if (escapedQuotes) {
+            return false;
+        }
+        skipWhitespace();
+        if (!consume(':')) {
+            return false;
+        }
+        skipWhitespace();
+        if (!consume('{')) {
+            return false;
+        }
+        parseEntries();
+        return true;
+    }
+
+    private void parseEntries() {
+        while (pos < end) {
+            skipWhitespace();
+            if (consume('}')) {
+                return;
+            }
+            int entryStart = pos;
+            String name = parseKey();
+            if (name == null) {
+                return;
+            }
+            skipWhitespace();
+            if (!consume(':')) {
+                return;
+            }
+            skipWhitespace();
+            int valueStart = pos;
+            String version = parseString();
+            if (version != null) {
+                consumer.accept(new NPMPackage(name, version,
+                        new String(data, entryStart, pos - entryStart, StandardCharsets.UTF_8)));
+            } else {
+                pos = valueStart;
+                if (!skipValue()) {
+                    return;
+                }
+            }
+            skipWhitespace();
+            if (!consume(',')) {
+                skipWhitespace();
+                consume('}');
+                return;
+            }
+        }
+    }
+
+    private String parseKey() {
+        if (pos < end && (isQuote(data[pos]) || data[pos] == '\\')) {
+            return parseString();
+        }
+        // Bare identifier key (e.g.: {react:"^17.0.2"})
+        int start = pos;
+        while (pos < end && isIdentifierChar(data[pos])) {
+            pos++;
+        }
+        return pos > start ? new String(data, start, pos - start, StandardCharsets.UTF_8) : null;
+    }
+
+    // Parses a string literal at "pos" and returns its raw content, or null if there is no string literal
+    private String parseString() {
+        int start = pos;
+        if (escapedQuotes) {
+            if (pos + 1 >= end || data[pos] != '\\' || !isQuote(data[pos + 1])) {
+                return null;
+            }
+            byte quote = data[pos + 1];
+            pos += 2;
+            int contentStart = pos;
+            while (pos + 1 < end) {
+                if (data[pos] == '\\' && data[pos + 1] == quote) {
+                    String value = new String(data, contentStart, pos - contentStart, StandardCharsets.UTF_8);
+                    pos += 2;
+                    return value;
+                }
+                if (data[pos] == '\n') {
+                    break;
+                }
+                pos++;
+            }
+        } else {
+            if (pos >= end || !isQuote(data[pos])) {
+                return null;
+            }
+            byte quote = data[pos++];
+            int contentStart = pos;
+            while (pos < end) {
+                byte b = data[pos];
+                if (b == '\\') {
+                    pos += 2;
+                    continue;
+                }
+                if (b == quote) {
+                    String value = new String(data, contentStart, pos - contentStart, StandardCharsets.UTF_8);
+                    pos++;
+                    return value;
+                }
+                if (b == '\n' && quote != '`') {
+                    break;
+                }
+                pos++;
+            }
+        }
+        pos = start;
+        return null;
+    }
+
+    // Skips a non-string value (nested object/array, number, identifier, ..etc.) up to the next ',' or '}' at the same level
+    private boolean skipValue() {
+        int depth = 0;
+        while (pos < end) {
+            byte b = data[pos];
+            if (isQuote(b) || (escapedQuotes && b == '\\' && pos + 1 < end && isQuote(data[pos + 1]))) {
+                if (parseString() == null) {
+                    pos++;
+                }
+                continue;
+            }
+            if (b == '{' || b == '[' || b == '(') {
+                depth++;
+            } else if (b == '}' || b == ']' || b == ')') {
+                if (depth == 0) {
+                    return b == '}';
+                }
+                depth--;
+            } else if (b == ',' && depth == 0) {
+                return true;
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && (data[pos] == ' ' || data[pos] == '\t' || data[pos] == '\r' || data[pos] == '\n')) {
+            pos++;
+        }
+    }
+
+    private boolean consume(char expected) {
+        if (pos < end && data[pos] == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isQuote(byte b) {
+        return b == '"' || b == '\'' || b == '`';
+    }
+
+    private static boolean isKeySuffixChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '-' || b == '_';
+    }
+
+    private static boolean isIdentifierChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_' || b == '$';
+    }
+}
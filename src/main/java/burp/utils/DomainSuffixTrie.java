@@ -0,0 +1,81 @@
+package burp.utils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Domains (with a value each) stored as a trie of reversed labels ("com" -> "example"), matching the hostnames ending
+ * with any of them in a single right-to-left walk over the hostname's labels (whatever the number of domains is).
+ * A "*" label matches any single label (e.g.: "s3.*.amazonaws.com").
+ * Domains can be added / removed while other threads are matching.
+ *
+ * @param <V> The value attached to each domain
+ */
+public class DomainSuffixTrie<V> {
+    private static final String WILDCARD_LABEL = "*";
+    private final Node<V> root = new Node<>();
+
+    private static class Node<V> {
+        private final Map<String, Node<V>> children = new ConcurrentHashMap<>();
+        private volatile V value; // set if a domain ends at this node
+    }
+
+    public void add(String domain, V value) {
+        String[] labels = domain.toLowerCase(Locale.ROOT).split("\\.");
+        Node<V> node = root;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(labels[i], label -> new Node<>());
+        }
+        node.value = value;
+    }
+
+    /**
+     * Unmarks the domain (nodes are kept, the trie only grows with the number of distinct domains ever added).
+     */
+    public void remove(String domain) {
+        String[] labels = domain.toLowerCase(Locale.ROOT).split("\\.");
+        Node<V> node = root;
+        for (int i = labels.length - 1; i >= 0 && node != null; i--) {
+            node = node.children.get(labels[i]);
+        }
+        if (node != null) {
+            node.value = null;
+        }
+    }
+
+    /**
+     * @param hostname A lowercase hostname
+     * @return The value of the shortest domain the hostname is a subdomain of (at least one more label), or null
+     */
+    public V match(String hostname) {
+        return match(root, hostname, hostname.length());
+    }
+
+    private V match(Node<V> node, String hostname, int labelEnd) {
+        if (labelEnd <= 0) {
+            return null;
+        }
+        int labelStart = hostname.lastIndexOf('.', labelEnd - 1) + 1;
+        if (labelStart == 0) {
+            // The hostname itself is not a match, its subdomains are
+            return null;
+        }
+        V value = matchChild(node.children.get(hostname.substring(labelStart, labelEnd)), hostname, labelStart);
+        if (value == null) {
+            value = matchChild(node.children.get(WILDCARD_LABEL), hostname, labelStart);
+        }
+        return value;
+    }
+
+    private V matchChild(Node<V> child, String hostname, int labelStart) {
+        if (child == null) {
+            return null;
+        }
+        if (child.value != null) {
+            return child.value;
+        }
+        // Next label (on the left of the dot)
+        return match(child, hostname, labelStart - 1);
+    }
+}
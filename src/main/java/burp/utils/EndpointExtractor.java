@@ -0,0 +1,505 @@
+package burp.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Single pass, JS-aware API endpoints extractor.
+ * A small lexer (strings, template literals, comments and regex literals are skipped as such) feeds a recognizer that
+ * tracks the calls / object literals being parsed, so it finds:
+ * - shorthand calls: "http.get('/api/users')", "axios.post(`/api/users/${id}`)", "$.get(...)"
+ * - "fetch('/api/users', {method: 'POST'})", "axios('/api/users')", "$.ajax('/api/users', {type: 'PUT'})"
+ * - request configs: "axios({url: '/api/users', method: 'delete'})", "$.ajax({url: ..., type: ...})"
+ * - "xhr.open('GET', '/api/users')"
+ * - route tables / other object literals: "{path: '/api/users', method: 'GET'}" (method "ANY" if unknown)
+ * Template literal expressions are replaced by "{name}" (e.g.: "/api/users/{id}").
+ */
+public class EndpointExtractor {
+    public static final String ANY_METHOD = "ANY";
+    private static final String DEFAULT_METHOD = "GET";
+    private static final int MAX_ENDPOINT_LENGTH = 2048;
+
+    private static final Set<String> HTTP_METHODS = new HashSet<>(Arrays.asList(
+            "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS"));
+    // e.g.: "fetch(url, init)", "$.ajax(url, settings)", "axios(config)"
+    private static final Set<String> REQUEST_FUNCTIONS = new HashSet<>(Arrays.asList(
+            "fetch", "axios", "ajax", "request", "$http"));
+    private static final Set<String> URL_KEYS = new HashSet<>(Arrays.asList(
+            "url", "uri", "path", "endpoint", "route"));
+    private static final Set<String> METHOD_KEYS = new HashSet<>(Arrays.asList(
+            "method", "type"));
+    // A "/" after these keywords starts a regex literal, not a division
+    private static final Set<String> REGEX_PRECEDING_KEYWORDS = new HashSet<>(Arrays.asList(
+            "return", "typeof", "case", "do", "else", "in", "of", "new", "delete", "void", "throw", "instanceof", "yield", "await"));
+
+    // Token kinds
+    private static final int NONE = 0;
+    private static final int IDENTIFIER = 1;
+    private static final int STRING = 2;
+    private static final int PUNCTUATOR = 3;
+    private static final int LITERAL = 4; // numbers, regex literals
+
+    public static class Endpoint {
+        private final String method;
+        private final String url;
+        private final String rawUrl;
+
+        Endpoint(String method, String url, String rawUrl) {
+            this.method = method;
+            this.url = url;
+            this.rawUrl = rawUrl;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * The URL as written in the file (for the response markers)
+         */
+        public String getRawUrl() {
+            return rawUrl;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Endpoint endpoint = (Endpoint) o;
+            return method.equals(endpoint.method) && url.equals(endpoint.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, url);
+        }
+    }
+
+    // A call ("(") or an object literal ("{") being parsed
+    private static class Frame {
+        private final char type;
+        private String callee;
+        private boolean isMemberCall;
+        private int argumentIndex;
+        private String firstString;
+        private String firstStringRaw;
+        private String secondString;
+        private String secondStringRaw;
+        private String method;
+        private List<String[]> urls; // (value, raw) of the URL-like properties
+
+        Frame(char type) {
+            this.type = type;
+        }
+    }
+
+    private final String source;
+    private final int length;
+    private int position = 0;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final Set<Endpoint> endpoints = new LinkedHashSet<>();
+
+    // The last two tokens
+    private int previousKind = NONE;
+    private String previousText;
+    private int beforePreviousKind = NONE;
+    private String beforePreviousText;
+
+    private EndpointExtractor(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * @return The unique endpoints, in order of appearance
+     */
+    public static List<Endpoint> extract(String source) {
+        EndpointExtractor endpointExtractor = new EndpointExtractor(source);
+        endpointExtractor.run();
+        return new ArrayList<>(endpointExtractor.endpoints);
+    }
+
+    private void run() {
+        while (position < length) {
+            char c = source.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '/' && position + 1 < length && source.charAt(position + 1) == '/') {
+                int lineEnd = source.indexOf('\n', position);
+                position = lineEnd < 0 ? length : lineEnd + 1;
+            } else if (c == '/' && position + 1 < length && source.charAt(position + 1) == '*') {
+                int commentEnd = source.indexOf("*/", position + 2);
+                position = commentEnd < 0 ? length : commentEnd + 2;
+            } else if (c == '\'' || c == '"') {
+                int start = position + 1;
+                String value = readString(c);
+                onString(value, source.substring(start, Math.max(start, position - 1)));
+            } else if (c == '`') {
+                int start = position + 1;
+                String value = readTemplate();
+                onString(value, source.substring(start, Math.max(start, position - 1)));
+            } else if (isIdentifierStart(c)) {
+                int start = position;
+                while (position < length && isIdentifierPart(source.charAt(position))) {
+                    position++;
+                }
+                onToken(IDENTIFIER, source.substring(start, position));
+            } else if (c >= '0' && c <= '9') {
+                while (position < length && (isIdentifierPart(source.charAt(position)) || source.charAt(position) == '.')) {
+                    position++;
+                }
+                onToken(LITERAL, null);
+            } else if (c == '/' && isRegexAllowed() && skipRegex()) {
+                onToken(LITERAL, null);
+            } else {
+                position++;
+                onPunctuator(c);
+            }
+        }
+    }
+
+    /*
+     * Lexer
+     */
+
+    private String readString(char quote) {
+        position++;
+        StringBuilder value = null;
+        int start = position;
+        while (position < length) {
+            char c = source.charAt(position);
+            if (c == quote) {
+                String string = value == null ? source.substring(start, position) : value.toString();
+                position++;
+                return string;
+            }
+            if (c == '\n') {
+                // Unterminated
+                break;
+            }
+            if (c == '\\' && position + 1 < length) {
+                if (value == null) {
+                    value = new StringBuilder(source.substring(start, position));
+                }
+                position = readEscape(value);
+                continue;
+            }
+            if (value != null) {
+                value.append(c);
+            }
+            position++;
+        }
+        return value == null ? source.substring(start, position) : value.toString();
+    }
+
+    // position is on the "\", returns the position after the escape sequence
+    private int readEscape(StringBuilder value) {
+        char escaped = source.charAt(position + 1);
+        switch (escaped) {
+            case 'n':
+                value.append('\n');
+                break;
+            case 't':
+                value.append('\t');
+                break;
+            case 'r':
+                value.append('\r');
+                break;
+            case 'u':
+                if (position + 6 <= length) {
+                    try {
+                        value.append((char) Integer.parseInt(source.substring(position + 2, position + 6), 16));
+                        return position + 6;
+                    } catch (NumberFormatException e) {
+                        // Not a unicode escape, kept as is
+                    }
+                }
+                value.append(escaped);
+                break;
+            default:
+                value.append(escaped);
+        }
+        return position + 2;
+    }
+
+    private String readTemplate() {
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (position < length) {
+            char c = source.charAt(position);
+            if (c == '`') {
+                position++;
+                break;
+            }
+            if (c == '\\' && position + 1 < length) {
+                position = readEscape(value);
+                continue;
+            }
+            if (c == '$' && position + 1 < length && source.charAt(position + 1) == '{') {
+                int expressionStart = position + 2;
+                position = skipExpression(expressionStart);
+                value.append('{').append(getPlaceholderName(source.substring(expressionStart, position))).append('}');
+                if (position < length) {
+                    // Closing "}" (missing in truncated files)
+                    position++;
+                }
+                continue;
+            }
+            value.append(c);
+            position++;
+        }
+        return value.toString();
+    }
+
+    // Returns the position of the "}" closing a template literal expression (the end of the source if unterminated)
+    private int skipExpression(int start) {
+        int depth = 0;
+        position = Math.min(start, length);
+        while (position < length) {
+            char c = source.charAt(position);
+            if (c == '\'' || c == '"') {
+                readString(c);
+                continue;
+            }
+            if (c == '`') {
+                readTemplate();
+                continue;
+            }
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (depth == 0) {
+                    return position;
+                }
+                depth--;
+            }
+            position++;
+        }
+        return Math.min(position, length);
+    }
+
+    // "${user.id}" -> "id", "${a + b}" -> "param"
+    private static String getPlaceholderName(String expression) {
+        String trimmedExpression = expression.trim();
+        int nameStart = trimmedExpression.lastIndexOf('.') + 1;
+        if (nameStart >= trimmedExpression.length() || !isIdentifierStart(trimmedExpression.charAt(nameStart))) {
+            return "param";
+        }
+        for (int i = 0; i < trimmedExpression.length(); i++) {
+            char c = trimmedExpression.charAt(i);
+            if (!isIdentifierPart(c) && c != '.') {
+                return "param";
+            }
+        }
+        return trimmedExpression.substring(nameStart);
+    }
+
+    private boolean isRegexAllowed() {
+        if (previousKind == NONE) {
+            return true;
+        }
+        if (previousKind == IDENTIFIER) {
+            return REGEX_PRECEDING_KEYWORDS.contains(previousText);
+        }
+        if (previousKind == PUNCTUATOR) {
+            char c = previousText.charAt(0);
+            return c != ')' && c != ']' && c != '}';
+        }
+        return false;
+    }
+
+    // Returns false (position unchanged) if this is not a regex literal (e.g.: unterminated on this line)
+    private boolean skipRegex() {
+        int regexPosition = position + 1;
+        boolean isInClass = false;
+        while (regexPosition < length) {
+            char c = source.charAt(regexPosition);
+            if (c == '\n') {
+                return false;
+            }
+            if (c == '\\') {
+                regexPosition += 2;
+                continue;
+            }
+            if (c == '[') {
+                isInClass = true;
+            } else if (c == ']') {
+                isInClass = false;
+            } else if (c == '/' && !isInClass) {
+                regexPosition++;
+                // Flags
+                while (regexPosition < length && isIdentifierPart(source.charAt(regexPosition))) {
+                    regexPosition++;
+                }
+                position = regexPosition;
+                return true;
+            }
+            regexPosition++;
+        }
+        return false;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '$' || c == '_' || c > 0x7F && Character.isLetter(c);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    /*
+     * Recognizer
+     */
+
+    private void onPunctuator(char c) {
+        switch (c) {
+            case '(':
+                Frame call = new Frame('(');
+                if (previousKind == IDENTIFIER) {
+                    call.callee = previousText.toLowerCase(Locale.ROOT);
+                    call.isMemberCall = beforePreviousKind == PUNCTUATOR && beforePreviousText.equals(".");
+                }
+                frames.push(call);
+                break;
+            case ')':
+                Frame closedCall = pop('(');
+                if (closedCall != null) {
+                    onCallClosed(closedCall);
+                }
+                break;
+            case '{':
+                frames.push(new Frame('{'));
+                break;
+            case '}':
+                Frame closedObject = pop('{');
+                if (closedObject != null) {
+                    onObjectClosed(closedObject);
+                }
+                break;
+            case ',':
+                if (!frames.isEmpty() && frames.peek().type == '(') {
+                    frames.peek().argumentIndex++;
+                }
+                break;
+            default:
+        }
+        onToken(PUNCTUATOR, String.valueOf(c));
+    }
+
+    // Pops up to the frame of the given type (unbalanced brackets are dropped)
+    private Frame pop(char type) {
+        while (!frames.isEmpty()) {
+            Frame frame = frames.pop();
+            if (frame.type == type) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private void onString(String value, String raw) {
+        Frame frame = frames.peek();
+        if (frame != null && frame.type == '(') {
+            boolean isFirstArgument = frame.argumentIndex == 0 && frame.firstString == null;
+            if (isFirstArgument && isPrevious(PUNCTUATOR, "(")) {
+                frame.firstString = value;
+                frame.firstStringRaw = raw;
+            } else if (isFirstArgument && isPrevious(PUNCTUATOR, "+")) {
+                // e.g.: "get(baseURL + '/api/users')"
+                frame.firstString = value;
+                frame.firstStringRaw = raw;
+            } else if (frame.argumentIndex == 1 && frame.secondString == null && isPrevious(PUNCTUATOR, ",")) {
+                frame.secondString = value;
+                frame.secondStringRaw = raw;
+            }
+        } else if (frame != null && isPrevious(PUNCTUATOR, ":")
+                && (beforePreviousKind == IDENTIFIER || beforePreviousKind == STRING)) {
+            String key = beforePreviousText.toLowerCase(Locale.ROOT);
+            if (URL_KEYS.contains(key)) {
+                if (frame.urls == null) {
+                    frame.urls = new ArrayList<>();
+                }
+                frame.urls.add(new String[]{value, raw});
+            } else if (METHOD_KEYS.contains(key) && HTTP_METHODS.contains(value.toUpperCase(Locale.ROOT))) {
+                frame.method = value.toUpperCase(Locale.ROOT);
+            }
+        }
+        onToken(STRING, value);
+    }
+
+    private void onCallClosed(Frame call) {
+        if (call.callee == null || call.firstString == null) {
+            return;
+        }
+        String callee = call.callee;
+        String upperCaseCallee = callee.toUpperCase(Locale.ROOT);
+        if (call.isMemberCall && HTTP_METHODS.contains(upperCaseCallee)) {
+            // e.g.: "http.get('/api/users')"
+            addEndpoint(upperCaseCallee, call.firstString, call.firstStringRaw);
+        } else if (call.isMemberCall && callee.equals("open") && call.secondString != null
+                && HTTP_METHODS.contains(call.firstString.toUpperCase(Locale.ROOT))) {
+            // e.g.: "xhr.open('GET', '/api/users')"
+            addEndpoint(call.firstString.toUpperCase(Locale.ROOT), call.secondString, call.secondStringRaw);
+        } else if (REQUEST_FUNCTIONS.contains(callee)) {
+            // e.g.: "fetch('/api/users', {method: 'POST'})"
+            addEndpoint(call.method != null ? call.method : DEFAULT_METHOD, call.firstString, call.firstStringRaw);
+        }
+    }
+
+    private void onObjectClosed(Frame object) {
+        Frame parent = frames.peek();
+        boolean isRequestConfig = parent != null && parent.type == '(' && parent.callee != null
+                && REQUEST_FUNCTIONS.contains(parent.callee);
+        if (isRequestConfig && parent.method == null) {
+            parent.method = object.method;
+        }
+        if (object.urls != null) {
+            String defaultMethod = isRequestConfig ? DEFAULT_METHOD : ANY_METHOD;
+            for (String[] url : object.urls) {
+                addEndpoint(object.method != null ? object.method : defaultMethod, url[0], url[1]);
+            }
+        }
+    }
+
+    private void addEndpoint(String method, String url, String rawUrl) {
+        if (isEndpoint(url)) {
+            endpoints.add(new Endpoint(method, url, rawUrl));
+        }
+    }
+
+    private static boolean isEndpoint(String url) {
+        if (url.length() < 2 || url.length() > MAX_ENDPOINT_LENGTH || url.indexOf('/') < 0) {
+            return false;
+        }
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '<' || c == '>' || Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPrevious(int kind, String text) {
+        return previousKind == kind && previousText.equals(text);
+    }
+
+    private void onToken(int kind, String text) {
+        beforePreviousKind = previousKind;
+        beforePreviousText = previousText;
+        previousKind = kind;
+        previousText = text;
+    }
+}
@@ -1,11 +1,11 @@
 package burp.utils;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
 
 import static burp.BurpExtender.mStdErr;
 
@@ -14,62 +14,141 @@ import static burp.BurpExtender.mStdErr;
  */
 
 public class FileUtils {
+    private static final String UNNAMED_FILE = "unnamed";
+    private static final Path JS_MINER_DIRECTORY = Paths.get(System.getProperty("user.home"))
+            .resolve(".BurpSuite")
+            .resolve("JS-Miner");
 
-    // Function 2 - After parsing map files, save resulting data to mapped destinations
-    public static boolean saveFile(String sourceFilePath, byte[] data, Path outputDirPath) {
+    private FileUtils() {
+    }
+
+    /**
+     * Saves the file asynchronously (the file writer's queue takes ownership of the passed bytes).
+     * Use "AsyncFileWriter.getInstance().flush()" to know when the queued files were written.
+     *
+     * @return A future completed with true once the file was written, false if it failed
+     */
+    public static CompletableFuture<Boolean> saveFile(String sourceFilePath, byte[] data, Path outputDirPath) {
+        return AsyncFileWriter.getInstance().saveFile(sourceFilePath, data, outputDirPath);
+    }
+
+    /*
+     * Security check for file names to prevent potential path traversal attacks.
+     * The untrusted path is resolved as if "outputDirPath" was the root directory ("../" can not go above it),
+     * purely in memory (no canonical path look-ups).
+     * If structuring the file path fails, the file is kept in the "tmp" directory instead of not saving it.
+     */
+    static Path secureFile(String fileName, Path outputDirPath) {
+        Deque<String> segments = getSecureSegments(fileName);
+        if (segments.isEmpty()) {
+            return getTempDirPath(outputDirPath).resolve(UNNAMED_FILE);
+        }
 
-        Path filePath = Paths.get(sourceFilePath);
-        String fileName = filePath.getFileName().toString();
-        Utilities.createDirectoriesIfNotExist(getTempDirPath(outputDirPath));
         try {
-            Path tempFile = Files.createTempFile(getTempDirPath(outputDirPath), fileName, ".js");
-            Files.write(tempFile, data);
-            String trustedFileName = secureFile(sourceFilePath, outputDirPath);
-            Path trustedPath = Paths.get(trustedFileName);
-            // check & rename to "e.g.: existingFile_n.js" if duplicate
-            trustedPath = Utilities.handleDuplicateFile(trustedPath);
-            Files.move(tempFile, trustedPath);
-            if (!Utilities.isDirEmpty(outputDirPath)) {
-                return true;
+            Path trustedPath = outputDirPath;
+            for (String segment : segments) {
+                trustedPath = trustedPath.resolve(segment);
             }
-        } catch (IOException e) {
-            mStdErr.println("[-] Error saving the file - saveFile IOException.");
+            if (trustedPath.normalize().startsWith(outputDirPath.normalize())) {
+                return trustedPath;
+            }
+            mStdErr.println("[-] Unexpected OS file write was prevented.");
+        } catch (InvalidPathException e) {
+            mStdErr.println("[-] secureFile failed - InvalidPathException.");
         }
-        return false;
+        return getTempDirPath(outputDirPath).resolve(toSafeFileName(segments.getLast()));
     }
 
-
-    // Function 3 - Security check for File name to prevent potential path traversal attacks
-    private static String secureFile(String fileName, Path outputDirPath) {
-        File destinationDir = new File(outputDirPath.toString());
-
-        String fakeRootPath;
-        if (System.getenv("SystemDrive") != null) {
-            fakeRootPath = System.getenv("SystemDrive");
-        } else {
-            fakeRootPath = FileSystems.getDefault().getSeparator();
+    /*
+     * Same security check for ZIP entry names (a relative "/" separated path that can not go above the archive root),
+     * so the archives can be extracted safely.
+     */
+    static String secureEntryName(String fileName) {
+        Deque<String> segments = getSecureSegments(fileName);
+        if (segments.isEmpty()) {
+            return UNNAMED_FILE;
         }
-        File untrustedFile = new File(fakeRootPath + fileName); // Fake root path
-
-        File trustedFile;
-        try {
-            trustedFile = new File(destinationDir.getCanonicalPath() +
-                    untrustedFile.toPath().normalize().toString().replace(fakeRootPath, FileSystems.getDefault().getSeparator())); // Replace fakeRootPath with system separator
+        StringBuilder entryName = new StringBuilder();
+        for (String segment : segments) {
+            if (entryName.length() > 0) {
+                entryName.append('/');
+            }
+            // Drive letters / ADS markers are not valid in entry names either
+            entryName.append(segment.replace(":", ""));
+        }
+        return entryName.toString();
+    }
 
-            if (trustedFile.getCanonicalPath().startsWith(destinationDir.getCanonicalPath())) {
-                Utilities.createDirectoriesIfNotExist(trustedFile.getParentFile().toPath());
-                return trustedFile.toString();
+    // Path segments with "." / ".." resolved from a fake root directory
+    private static Deque<String> getSecureSegments(String fileName) {
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : fileName.replace('\\', '/').split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                segments.pollLast();
             } else {
-                mStdErr.println("[-] Unexpected OS file write was prevented.");
+                segments.addLast(segment);
             }
-        } catch (IOException ioException) {
-            mStdErr.println("[-] secureFile failed - IOException.");
         }
-        // If structuring the file path failed, keep the file in the temp directory instead of not saving it
-        return getTempDirPath(outputDirPath).toString();
+        return segments;
+    }
+
+    private static String toSafeFileName(String fileName) {
+        return fileName.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    /**
+     * Stable per-host workspace for the reconstructed sources (re-used by all runs).
+     */
+    public static Path getWorkspace(String host) {
+        return JS_MINER_DIRECTORY.resolve(host);
+    }
+
+    /**
+     * Stable per-host workspace for the static files dumps (re-used by all runs).
+     */
+    public static Path getDumpWorkspace(String host) {
+        return JS_MINER_DIRECTORY.resolve("Dump").resolve(host);
+    }
+
+    /**
+     * JSONL manifest of a static files dump run (one line per persisted file).
+     */
+    public static Path getDumpManifestPath(long timestamp) {
+        return JS_MINER_DIRECTORY.resolve("Dump").resolve("manifests").resolve(timestamp + ".jsonl");
+    }
+
+    public static boolean isArchive(Path path) {
+        return path.getFileName().toString().endsWith(".zip");
+    }
+
+    static Path getBlobsDirectory() {
+        return JS_MINER_DIRECTORY.resolve(".blobs");
+    }
+
+    /**
+     * One ZIP archive per run, next to the workspace (e.g.: ".../Dump/example.com-1700000000000.zip").
+     */
+    public static Path getArchivePath(Path workspace, long timestamp) {
+        return workspace.resolveSibling(workspace.getFileName() + "-" + timestamp + ".zip");
+    }
+
+    // e.g.: ("dir/app.min.js", "_abc") -> "dir/app.min_abc.js"
+    static Path appendToFileName(Path filePath, String suffix) {
+        return filePath.resolveSibling(appendToFileName(filePath.getFileName().toString(), suffix));
+    }
+
+    static String appendToFileName(String fileName, String suffix) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex <= fileName.lastIndexOf('/') + 1) {
+            return fileName + suffix;
+        }
+        return fileName.substring(0, extensionIndex) + suffix + fileName.substring(extensionIndex);
     }
 
-    private static Path getTempDirPath(Path outputDirPath) {
+    static Path getTempDirPath(Path outputDirPath) {
         return outputDirPath.resolve("tmp");
     }
 }
@@ -0,0 +1,55 @@
+package burp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass extraction of the hostname-like tokens of a text (runs of letters, digits, "-" and "." with at least one dot),
+ * to be classified afterwards (e.g.: against a DomainSuffixTrie) instead of running a regex per domain.
+ */
+public class HostnameExtractor {
+    private HostnameExtractor() {
+    }
+
+    /**
+     * @return The hostnames in order of appearance (as found, not lowercased)
+     */
+    public static List<String> extract(String text) {
+        List<String> hostnames = new ArrayList<>();
+        int hostnameStart = -1;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            if (i < length && isHostnameChar(text.charAt(i))) {
+                if (hostnameStart < 0) {
+                    hostnameStart = i;
+                }
+                continue;
+            }
+            if (hostnameStart >= 0) {
+                String hostname = trimHostname(text.substring(hostnameStart, i));
+                hostnameStart = -1;
+                if (hostname.indexOf('.') > 0) {
+                    hostnames.add(hostname);
+                }
+            }
+        }
+        return hostnames;
+    }
+
+    private static boolean isHostnameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.';
+    }
+
+    // Labels can not start / end with "." or "-" (e.g.: "-api.example.com." in "x-api.example.com.")
+    private static String trimHostname(String hostname) {
+        int start = 0;
+        int end = hostname.length();
+        while (start < end && (hostname.charAt(start) == '.' || hostname.charAt(start) == '-')) {
+            start++;
+        }
+        while (end > start && (hostname.charAt(end - 1) == '.' || hostname.charAt(end - 1) == '-')) {
+            end--;
+        }
+        return hostname.substring(start, end);
+    }
+}
@@ -0,0 +1,267 @@
+package burp.utils;
+
+import com.google.re2j.Matcher;
+import com.google.re2j.Pattern;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, memory-mapped set of public NPM package names and scopes (used by the offline "dependency confusion" mode).
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * int magic, int version, int count, int bloomWords, int bloomHashes
+ * long[bloomWords]  Bloom filter bits
+ * int[count + 1]    offsets of each name inside the strings region
+ * byte[]            UTF-8 names, sorted by unsigned byte order
+ * </pre>
+ * Lookups check the Bloom filter first, then binary search the sorted table, so no heap is used for the names.
+ * Scopes are stored as "@scope" entries, next to the package names.
+ */
+public class NPMNameIndex {
+    private static final int MAGIC = 0x4A534D4E; // "JSMN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int BLOOM_BITS_PER_NAME = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final Pattern ALL_DOCS_ID_REGEX = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int bloomWords;
+    private final int bloomHashes;
+    private final int offsetsStart;
+    private final int stringsStart;
+
+    private NPMNameIndex(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a valid NPM names index file.");
+        }
+        this.count = buffer.getInt(8);
+        this.bloomWords = buffer.getInt(12);
+        this.bloomHashes = buffer.getInt(16);
+        this.offsetsStart = HEADER_SIZE + bloomWords * Long.BYTES;
+        this.stringsStart = offsetsStart + (count + 1) * Integer.BYTES;
+    }
+
+    public static NPMNameIndex open(Path indexPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("NPM names index file is too large.");
+            }
+            // The mapping stays valid after the channel is closed
+            return new NPMNameIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean containsPackage(String packageName) {
+        return contains(packageName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean containsScope(String scope) {
+        return contains(("@" + scope).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean contains(byte[] name) {
+        if (!mightContain(name)) {
+            return false;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareAt(mid, name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mightContain(byte[] name) {
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bloomBits = (long) bloomWords * Long.SIZE;
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bloomBits;
+            long word = buffer.getLong(HEADER_SIZE + (int) (bit >>> 6) * Long.BYTES);
+            if ((word & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Compares the stored name at "index" with "name" (unsigned byte order)
+    private int compareAt(int index, byte[] name) {
+        int start = stringsStart + buffer.getInt(offsetsStart + index * Integer.BYTES);
+        int end = stringsStart + buffer.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+        int length = Math.min(end - start, name.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = (buffer.get(start + i) & 0xFF) - (name[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return (end - start) - name.length;
+    }
+
+    // 64-bit FNV-1a, followed by the MurmurHash3 finalizer to spread the bits
+    private static long hash(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Builds an index file from a registry names dump.
+     * Supported dumps: one name per line, a JSON array of names (e.g.: "all-the-package-names"),
+     * or the registry "_all_docs" output (one row per line).
+     *
+     * @return number of indexed entries (package names and scopes)
+     */
+    public static int build(Path dumpPath, Path indexPath) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(dumpPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String name = parseDumpLine(line);
+                if (name == null) {
+                    continue;
+                }
+                names.add(name.getBytes(StandardCharsets.UTF_8));
+                // Register the scope of scoped packages as well (@scope/name -> @scope)
+                int slash = name.indexOf('/');
+                if (name.startsWith("@") && slash > 1) {
+                    names.add(name.substring(0, slash).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        names.sort(NPMNameIndex::compareBytes);
+        List<byte[]> uniqueNames = new ArrayList<>(names.size());
+        for (byte[] name : names) {
+            if (uniqueNames.isEmpty() || compareBytes(uniqueNames.get(uniqueNames.size() - 1), name) != 0) {
+                uniqueNames.add(name);
+            }
+        }
+
+        int bloomWords = Math.max(1, (int) (((long) uniqueNames.size() * BLOOM_BITS_PER_NAME + 63) / 64));
+        long[] bloom = new long[bloomWords];
+        long bloomBits = (long) bloomWords * Long.SIZE;
+        for (byte[] name : uniqueNames) {
+            long hash = hash(name);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bloomBits;
+                bloom[(int) (bit >>> 6)] |= 1L << (bit & 63);
+            }
+        }
+
+        // Write to a temporary file first, so a running scan never maps a half-written index
+        Path parentDir = indexPath.toAbsolutePath().getParent();
+        if (parentDir != null) {
+            Files.createDirectories(parentDir);
+        }
+        Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(uniqueNames.size());
+            out.writeInt(bloomWords);
+            out.writeInt(BLOOM_HASHES);
+            for (long word : bloom) {
+                out.writeLong(word);
+            }
+            int offset = 0;
+            for (byte[] name : uniqueNames) {
+                out.writeInt(offset);
+                offset += name.length;
+            }
+            out.writeInt(offset);
+            for (byte[] name : uniqueNames) {
+                out.write(name);
+            }
+        }
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        return uniqueNames.size();
+    }
+
+    private static String parseDumpLine(String line) {
+        String name = line.trim();
+        if (name.startsWith("{")) {
+            // "_all_docs" row: {"id":"<name>","key":"<name>","value":{"rev":"..."}}
+            Matcher idMatcher = ALL_DOCS_ID_REGEX.matcher(name);
+            return idMatcher.find() ? idMatcher.group(1) : null;
+        }
+        // JSON array entries: ["name1", "name2", ...]
+        if (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.endsWith(",")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        if (name.endsWith("]")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        name = name.trim();
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name.isEmpty() ? null : name;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Import tool, to build the index outside Burp:
+     * java -cp burp-JS-Miner-all.jar burp.utils.NPMNameIndex &lt;names-dump&gt; &lt;index-file&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: NPMNameIndex <names-dump> <index-file>");
+            System.exit(1);
+        }
+        long start = System.currentTimeMillis();
+        int entries = build(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("[+] Indexed " + entries + " names in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+}
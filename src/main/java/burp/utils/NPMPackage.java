@@ -1,9 +1,6 @@
 package burp.utils;
 
 import java.util.Objects;
-import com.google.re2j.Matcher;
-import com.google.re2j.Pattern;
-import static burp.utils.Constants.REGEX_QUOTES;
 
 /**
  * NPM package to hold dependency name and version.
@@ -16,21 +13,17 @@ public class NPMPackage {
     private String nameWithVersion;
     private boolean disclosedNameOnly;
 
-    private static final Pattern DEPENDENCY_AND_VERSION_REGEX = Pattern.compile(REGEX_QUOTES + "(.*)" + REGEX_QUOTES +
-            ":" +
-            REGEX_QUOTES + "(.*)" + REGEX_QUOTES);
-
     private static final String[] blacklistDepName = {"node_modules", "favicon.ico"};
 
-    public NPMPackage(String dependencyWithNameAndVersion) {
-        final Matcher nameAndVersionMatcher = DEPENDENCY_AND_VERSION_REGEX.matcher(dependencyWithNameAndVersion);
-
-        if (nameAndVersionMatcher.find()
-                && nameAndVersionMatcher.groupCount() == 2) {
-            this.name = nameAndVersionMatcher.group(1);
-            this.version = nameAndVersionMatcher.group(2);
-            this.nameWithVersion = nameAndVersionMatcher.group();
-        }
+    /**
+     * @param name            Dependency name
+     * @param version         Dependency version (or URL / file path for non-NPM packages)
+     * @param nameWithVersion The dependency entry as it appears in the file (used for highlighting)
+     */
+    public NPMPackage(String name, String version, String nameWithVersion) {
+        this.name = name;
+        this.version = version;
+        this.nameWithVersion = nameWithVersion;
     }
 
     // Construct an NPMPackage when an internal package name was disclosed (without the version number).
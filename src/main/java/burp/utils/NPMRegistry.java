@@ -0,0 +1,200 @@
+package burp.utils;
+
+import burp.BurpExtender;
+import burp.IExtensionHelpers;
+import burp.IHttpRequestResponse;
+import burp.config.ExecutorServiceManager;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * Client for the NPM registry used by the "dependency confusion" scan.
+ * Lookups are dispatched concurrently to the I/O-bound scanners pool (virtual threads on Java 21+) and sent through
+ * the extension's ActiveRequestScheduler, which applies the per-host rate limit and the in-flight requests cap.
+ * The registry base URL is taken from the extension configuration, so an internal mirror can be used instead of npmjs.org.
+ * In offline mode, lookups are answered from a local NPMNameIndex instead, without any network access.
+ */
+public class NPMRegistry {
+    public static final int NO_RESPONSE = -1;
+    private static final IExtensionHelpers helpers = BurpExtender.getHelpers();
+    private static NPMRegistry npmRegistry = null;
+
+    // The index opened (or that failed to open) for the configured path; read without locking by the lookups
+    private volatile OpenedNameIndex openedNameIndex;
+
+    public static synchronized NPMRegistry getInstance() {
+        if (npmRegistry == null)
+            npmRegistry = new NPMRegistry();
+        return npmRegistry;
+    }
+
+    private NPMRegistry() {
+    }
+
+    /**
+     * Checks the registry is reachable, so a failed lookup is not mistaken for a missing package.
+     */
+    public boolean isReachable() {
+        if (BurpExtender.getExtensionConfig().isOfflineDependencyConfusion()) {
+            return getNameIndex() != null;
+        }
+        try {
+            return getStatusCode(registryURL("-/ping")) != NO_RESPONSE;
+        } catch (MalformedURLException e) {
+            mStdErr.println("[-] Invalid NPM registry URL: " + BurpExtender.getExtensionConfig().getNpmRegistryURL());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Asynchronously queries the registry document of a (non-scoped) package.
+     * The future holds the HTTP status code, or NO_RESPONSE if the request failed.
+     */
+    public Future<Integer> getPackageStatus(String packageName) throws MalformedURLException {
+        if (BurpExtender.getExtensionConfig().isOfflineDependencyConfusion()) {
+            NPMNameIndex nameIndex = getNameIndex();
+            return offlineLookup(nameIndex != null && nameIndex.containsPackage(packageName));
+        }
+        return submitLookup(getPackageURL(packageName));
+    }
+
+    /**
+     * Asynchronously queries the registry JSON API for a scope (organization).
+     * The future holds the HTTP status code, or NO_RESPONSE if the request failed.
+     */
+    public Future<Integer> getScopeStatus(String scope) throws MalformedURLException {
+        if (BurpExtender.getExtensionConfig().isOfflineDependencyConfusion()) {
+            NPMNameIndex nameIndex = getNameIndex();
+            return offlineLookup(nameIndex != null && nameIndex.containsScope(scope));
+        }
+        return submitLookup(getScopeURL(scope));
+    }
+
+    public URL getPackageURL(String packageName) throws MalformedURLException {
+        return registryURL(urlEncode(packageName));
+    }
+
+    public URL getScopeURL(String scope) throws MalformedURLException {
+        return registryURL("-/org/" + urlEncode(scope) + "/package");
+    }
+
+    /**
+     * Returns the offline names index set in the extension configuration (re-opened if the path changed),
+     * or null if it is not available. A failed open is remembered (and logged once) until the path changes
+     * or "reloadNameIndex" is called.
+     */
+    public NPMNameIndex getNameIndex() {
+        Path configuredPath = Paths.get(BurpExtender.getExtensionConfig().getNpmNameIndexPath());
+        OpenedNameIndex opened = openedNameIndex;
+        if (opened == null || !opened.path.equals(configuredPath)) {
+            opened = openNameIndex(configuredPath);
+        }
+        return opened.nameIndex;
+    }
+
+    private synchronized OpenedNameIndex openNameIndex(Path configuredPath) {
+        // Another thread may have opened it in the meantime
+        OpenedNameIndex opened = openedNameIndex;
+        if (opened != null && opened.path.equals(configuredPath)) {
+            return opened;
+        }
+        NPMNameIndex nameIndex = null;
+        try {
+            nameIndex = NPMNameIndex.open(configuredPath);
+        } catch (IOException e) {
+            mStdErr.println("[-] Offline NPM names index could not be opened: " + configuredPath);
+        }
+        opened = new OpenedNameIndex(configuredPath, nameIndex);
+        openedNameIndex = opened;
+        return opened;
+    }
+
+    /**
+     * Drops the opened index (or the failed open), so the next lookup maps the (re-built) file again.
+     */
+    public synchronized void reloadNameIndex() {
+        openedNameIndex = null;
+    }
+
+    private static class OpenedNameIndex {
+        private final Path path;
+        private final NPMNameIndex nameIndex; // null if it could not be opened
+
+        OpenedNameIndex(Path path, NPMNameIndex nameIndex) {
+            this.path = path;
+            this.nameIndex = nameIndex;
+        }
+    }
+
+    // Offline lookups are answered with the status code the registry would have returned
+    private static Future<Integer> offlineLookup(boolean exists) {
+        return CompletableFuture.completedFuture(exists ? 200 : 404);
+    }
+
+    private Future<Integer> submitLookup(URL url) {
+        Lookup lookup = new Lookup(() -> getStatusCode(url));
+        try {
+            BurpExtender.getExecutorServiceManager().getExecutorService(ExecutorServiceManager.Pool.IO).execute(lookup);
+        } catch (RejectedExecutionException e) {
+            // The pool was shut down: the lookup runs when awaited
+        }
+        return lookup;
+    }
+
+    /**
+     * A lookup awaited by a task of the same pool: if it is still queued, the waiting thread runs it itself
+     * (the queued copy is then a no-op), so tasks waiting on their lookups can never starve the pool.
+     */
+    private static class Lookup extends FutureTask<Integer> {
+        Lookup(Callable<Integer> callable) {
+            super(callable);
+        }
+
+        @Override
+        public Integer get() throws InterruptedException, ExecutionException {
+            run();
+            return super.get();
+        }
+    }
+
+    private int getStatusCode(URL url) throws InterruptedException {
+        IHttpRequestResponse httpRequestResponse = BurpExtender.getActiveRequestScheduler()
+                .makeHttpRequest(Utilities.url2HttpService(url), helpers.buildHttpRequest(url));
+        if (httpRequestResponse == null || httpRequestResponse.getResponse() == null) {
+            return NO_RESPONSE;
+        }
+        return helpers.analyzeResponse(httpRequestResponse.getResponse()).getStatusCode();
+    }
+
+    private static URL registryURL(String path) throws MalformedURLException {
+        String baseURL = BurpExtender.getExtensionConfig().getNpmRegistryURL();
+        if (!baseURL.endsWith("/")) {
+            baseURL = baseURL + "/";
+        }
+        return new URL(baseURL + path);
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package burp.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static burp.BurpExtender.mStdErr;
+
+/**
+ * Resolves registrable domains (e.g.: "example.co.uk" for "api.example.co.uk") from the bundled Public Suffix List
+ * (https://publicsuffix.org/list/public_suffix_list.dat, ICANN and private sections).
+ * The rules are loaded once into a trie of reversed labels, and resolved hosts are cached (LRU).
+ */
+public class PublicSuffixList {
+    private static PublicSuffixList publicSuffixList = null;
+    private static final String LIST_RESOURCE = "/public_suffix_list.dat";
+    private static final int MAX_CACHED_HOSTS = 4096;
+    // Cached value of hosts without a registrable domain (e.g.: a public suffix itself)
+    private static final String NO_REGISTRABLE_DOMAIN = "";
+
+    private final Node root = new Node();
+    private final Map<String, String> registrableDomains = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_HOSTS;
+        }
+    };
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean isRule;
+        private boolean isException;
+    }
+
+    public static synchronized PublicSuffixList getInstance() {
+        if (publicSuffixList == null)
+            publicSuffixList = new PublicSuffixList();
+        return publicSuffixList;
+    }
+
+    private PublicSuffixList() {
+        try (InputStream inputStream = PublicSuffixList.class.getResourceAsStream(LIST_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IOException("Missing resource " + LIST_RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                addRule(line.trim());
+            }
+        } catch (IOException e) {
+            // Without rules, only the default "*" rule applies (the last two labels)
+            mStdErr.println("[-] Could not load the public suffix list.");
+        }
+    }
+
+    private void addRule(String rule) {
+        if (rule.isEmpty() || rule.startsWith("//")) {
+            return;
+        }
+        boolean isException = rule.startsWith("!");
+        if (isException) {
+            rule = rule.substring(1);
+        }
+        try {
+            // Hosts are matched in their ASCII (punycode) form
+            rule = IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        String[] labels = rule.split("\\.");
+        Node node = root;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(labels[i], label -> new Node());
+        }
+        if (isException) {
+            node.isException = true;
+        } else {
+            node.isRule = true;
+        }
+    }
+
+    /**
+     * @return The registrable domain of the host (public suffix + one label), the host itself for IP addresses,
+     * or null if the host is a public suffix
+     */
+    public String getRegistrableDomain(String host) {
+        if (host == null || host.isEmpty()) {
+            return null;
+        }
+        String cachedDomain;
+        synchronized (registrableDomains) {
+            cachedDomain = registrableDomains.get(host);
+        }
+        if (cachedDomain == null) {
+            cachedDomain = resolve(host);
+            synchronized (registrableDomains) {
+                registrableDomains.put(host, cachedDomain);
+            }
+        }
+        return cachedDomain.equals(NO_REGISTRABLE_DOMAIN) ? null : cachedDomain;
+    }
+
+    private String resolve(String host) {
+        String normalizedHost = host.toLowerCase(Locale.ROOT);
+        if (normalizedHost.endsWith(".")) {
+            normalizedHost = normalizedHost.substring(0, normalizedHost.length() - 1);
+        }
+        if (isIPAddress(normalizedHost)) {
+            return normalizedHost;
+        }
+
+        String[] labels = normalizedHost.split("\\.");
+        int suffixLength = getPublicSuffixLength(labels);
+        if (labels.length <= suffixLength) {
+            return NO_REGISTRABLE_DOMAIN;
+        }
+        StringBuilder registrableDomain = new StringBuilder();
+        for (int i = labels.length - suffixLength - 1; i < labels.length; i++) {
+            if (registrableDomain.length() > 0) {
+                registrableDomain.append('.');
+            }
+            registrableDomain.append(labels[i]);
+        }
+        return registrableDomain.toString();
+    }
+
+    /**
+     * Number of labels of the prevailing rule ("https://github.com/publicsuffix/list/wiki/Format#algorithm"):
+     * an exception rule wins, otherwise the longest matching rule, otherwise the default "*" rule.
+     */
+    private int getPublicSuffixLength(String[] labels) {
+        int suffixLength = 1;
+        Node node = root;
+        for (int depth = 0; depth < labels.length; depth++) {
+            Node child = node.children.get(labels[labels.length - 1 - depth]);
+            if (child != null && child.isException) {
+                return depth;
+            }
+            Node wildcard = node.children.get("*");
+            if ((child != null && child.isRule) || (wildcard != null && wildcard.isRule)) {
+                suffixLength = depth + 1;
+            }
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return suffixLength;
+    }
+
+    private static boolean isIPAddress(String host) {
+        if (host.indexOf(':') >= 0 || host.startsWith("[")) {
+            return true;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package burp.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple token bucket rate limiter.
+ * Callers that exceed the rate reserve a future permit and sleep until it becomes available.
+ */
+public class RateLimiter {
+    private final double permitsPerSecond;
+    private final double maxPermits;
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond Sustained rate of permits
+     * @param burst            Maximum number of permits that can be acquired without waiting
+     */
+    public RateLimiter(double permitsPerSecond, double burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = burst;
+        this.storedPermits = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            storedPermits -= 1;
+            // A negative balance means the permit was reserved ahead of time
+            waitNanos = storedPermits >= 0 ? 0 : (long) (-storedPermits / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        storedPermits = Math.min(maxPermits, storedPermits + elapsedSeconds * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,103 @@
+package burp.utils;
+
+import burp.BurpExtender;
+import burp.IExtensionHelpers;
+import burp.IHttpRequestResponse;
+import burp.IHttpService;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Arrays;
+
+/**
+ * In-memory (virtual) HTTP request/response holding a source file reconstructed from a source map,
+ * so it can be passed to the passive scanners without being written to / read from the disk.
+ * The request URL is the map URL with the original source path as a query parameter
+ * (e.g.: https://example.com/main.js.map?jsminer-source=webpack%3A%2F%2F%2Fsrc%2Fconfig.js).
+ */
+public class ReconstructedSource implements IHttpRequestResponse {
+    private static final IExtensionHelpers helpers = BurpExtender.getHelpers();
+    private static final String SOURCE_PARAMETER = "jsminer-source";
+
+    private final URL mapURL;
+    private final String sourcePath;
+    private IHttpService httpService;
+    private byte[] request;
+    private byte[] response;
+    private String comment;
+    private String highlight;
+
+    public ReconstructedSource(URL mapURL, IHttpService httpService, String sourcePath, byte[] sourceContent)
+            throws MalformedURLException, UnsupportedEncodingException {
+        this.mapURL = mapURL;
+        this.sourcePath = sourcePath;
+        this.httpService = httpService;
+        String mapURLString = mapURL.toString();
+        this.request = helpers.buildHttpRequest(new URL(mapURLString
+                + (mapURL.getQuery() == null ? "?" : "&")
+                + SOURCE_PARAMETER + "=" + URLEncoder.encode(sourcePath, "UTF-8")));
+        this.response = helpers.buildHttpMessage(
+                Arrays.asList("HTTP/1.1 200 OK", "Content-Type: application/javascript"),
+                sourceContent);
+    }
+
+    public URL getMapURL() {
+        return mapURL;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    @Override
+    public byte[] getRequest() {
+        return request;
+    }
+
+    @Override
+    public void setRequest(byte[] message) {
+        this.request = message;
+    }
+
+    @Override
+    public byte[] getResponse() {
+        return response;
+    }
+
+    @Override
+    public void setResponse(byte[] message) {
+        this.response = message;
+    }
+
+    @Override
+    public String getComment() {
+        return comment;
+    }
+
+    @Override
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    @Override
+    public String getHighlight() {
+        return highlight;
+    }
+
+    @Override
+    public void setHighlight(String color) {
+        this.highlight = color;
+    }
+
+    @Override
+    public IHttpService getHttpService() {
+        return httpService;
+    }
+
+    @Override
+    public void setHttpService(IHttpService httpService) {
+        this.httpService = httpService;
+    }
+}
@@ -0,0 +1,209 @@
+package burp.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reverse index of a source map "mappings" field: (generated line, column) -> (source, original line, column).
+ * <p>
+ * Segments are decoded from the base64 VLQ string into parallel primitive arrays (one entry per segment, sorted by
+ * generated line then column), and looked up with a binary search over the segments of the generated line.
+ * Lines and columns are 0-based, as in the source map specification.
+ */
+public final class SourceMapIndex {
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        String base64Chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < base64Chars.length(); i++) {
+            BASE64_VALUES[base64Chars.charAt(i)] = i;
+        }
+    }
+
+    private final int[] lineStarts;        // first segment of each generated line (length = lines + 1)
+    private final int[] generatedColumns;
+    private final int[] sourceIndexes;     // -1 for unmapped segments
+    private final int[] originalLines;
+    private final int[] originalColumns;
+    private final int segmentsCount;
+    private String[] sources = new String[0];
+
+    private SourceMapIndex(int[] lineStarts, int[] generatedColumns, int[] sourceIndexes,
+                           int[] originalLines, int[] originalColumns, int segmentsCount) {
+        this.lineStarts = lineStarts;
+        this.generatedColumns = generatedColumns;
+        this.sourceIndexes = sourceIndexes;
+        this.originalLines = originalLines;
+        this.originalColumns = originalColumns;
+        this.segmentsCount = segmentsCount;
+    }
+
+    /**
+     * Decodes a "mappings" value, e.g.: straight from the JSON parser's text buffer (no String copy needed).
+     *
+     * @throws IllegalArgumentException if the mappings are not valid base64 VLQ
+     */
+    public static SourceMapIndex decode(char[] mappings, int offset, int length) {
+        int end = offset + length;
+        // Segments are at least one character plus a separator, so this avoids most of the array growths
+        int capacity = Math.max(16, length / 6);
+        int[] generatedColumns = new int[capacity];
+        int[] sourceIndexes = new int[capacity];
+        int[] originalLines = new int[capacity];
+        int[] originalColumns = new int[capacity];
+        int[] lineStarts = new int[64];
+        int linesCount = 1; // lineStarts[0] = 0
+
+        int segments = 0;
+        int generatedColumn = 0;
+        int sourceIndex = 0;
+        int originalLine = 0;
+        int originalColumn = 0;
+        int[] values = new int[5];
+
+        int i = offset;
+        while (i < end) {
+            char c = mappings[i];
+            if (c == ';') {
+                if (linesCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, linesCount << 1);
+                }
+                lineStarts[linesCount++] = segments;
+                generatedColumn = 0;
+                i++;
+                continue;
+            }
+            if (c == ',') {
+                i++;
+                continue;
+            }
+
+            int fields = 0;
+            while (i < end && mappings[i] != ',' && mappings[i] != ';') {
+                int result = 0;
+                int shift = 0;
+                int digit;
+                do {
+                    if (i >= end) {
+                        throw new IllegalArgumentException("Truncated VLQ value in source map mappings");
+                    }
+                    char vlqChar = mappings[i++];
+                    digit = vlqChar < 128 ? BASE64_VALUES[vlqChar] : -1;
+                    if (digit == -1 || shift > 30) {
+                        throw new IllegalArgumentException("Invalid VLQ value in source map mappings");
+                    }
+                    result |= (digit & 31) << shift;
+                    shift += 5;
+                } while ((digit & 32) != 0);
+                if (fields < values.length) {
+                    values[fields] = (result & 1) == 0 ? result >>> 1 : -(result >>> 1);
+                }
+                fields++;
+            }
+
+            if (segments == generatedColumns.length) {
+                int newCapacity = segments + (segments >> 1);
+                generatedColumns = Arrays.copyOf(generatedColumns, newCapacity);
+                sourceIndexes = Arrays.copyOf(sourceIndexes, newCapacity);
+                originalLines = Arrays.copyOf(originalLines, newCapacity);
+                originalColumns = Arrays.copyOf(originalColumns, newCapacity);
+            }
+            generatedColumn += values[0];
+            generatedColumns[segments] = generatedColumn;
+            if (fields >= 4) {
+                sourceIndex += values[1];
+                originalLine += values[2];
+                originalColumn += values[3];
+                sourceIndexes[segments] = sourceIndex;
+                originalLines[segments] = originalLine;
+                originalColumns[segments] = originalColumn;
+            } else {
+                sourceIndexes[segments] = -1;
+            }
+            segments++;
+        }
+
+        lineStarts = Arrays.copyOf(lineStarts, linesCount + 1);
+        lineStarts[linesCount] = segments;
+        // Drop the growth slack, the index may be cached for the whole session
+        generatedColumns = Arrays.copyOf(generatedColumns, segments);
+        sourceIndexes = Arrays.copyOf(sourceIndexes, segments);
+        originalLines = Arrays.copyOf(originalLines, segments);
+        originalColumns = Arrays.copyOf(originalColumns, segments);
+        return new SourceMapIndex(lineStarts, generatedColumns, sourceIndexes, originalLines, originalColumns, segments);
+    }
+
+    public static SourceMapIndex decode(String mappings) {
+        return decode(mappings.toCharArray(), 0, mappings.length());
+    }
+
+    /**
+     * Sets the map's "sources" list (the "mappings" field may be parsed before it).
+     */
+    public void setSources(List<String> sources) {
+        this.sources = sources.toArray(new String[0]);
+    }
+
+    public int getSegmentsCount() {
+        return segmentsCount;
+    }
+
+    /**
+     * @return The original location of the closest segment starting at or before the generated position,
+     * or null if that position is not mapped.
+     */
+    public OriginalLocation lookup(int generatedLine, int generatedColumn) {
+        if (generatedLine < 0 || generatedLine >= lineStarts.length - 1) {
+            return null;
+        }
+        int low = lineStarts[generatedLine];
+        int high = lineStarts[generatedLine + 1] - 1;
+        int match = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (generatedColumns[mid] <= generatedColumn) {
+                match = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (match == -1 || sourceIndexes[match] < 0) {
+            return null;
+        }
+        int sourceIndex = sourceIndexes[match];
+        String source = sourceIndex < sources.length ? sources[sourceIndex] : null;
+        return new OriginalLocation(source, originalLines[match], originalColumns[match]);
+    }
+
+    public static final class OriginalLocation {
+        private final String source;
+        private final int line;
+        private final int column;
+
+        OriginalLocation(String source, int line, int column) {
+            this.source = source;
+            this.line = line;
+            this.column = column;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        @Override
+        public String toString() {
+            // 1-based line / column, as displayed by editors
+            return (source != null ? source : "<unknown source>") + ":" + (line + 1) + ":" + (column + 1);
+        }
+    }
+}
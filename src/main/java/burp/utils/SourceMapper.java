@@ -4,11 +4,28 @@ import burp.BurpExtender;
 import burp.IExtensionHelpers;
 import burp.IHttpRequestResponse;
 import burp.IScanIssue;
-import com.fasterxml.jackson.databind.DeserializationFeature;
+import burp.core.ScannerBuilder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
 
 import static burp.BurpExtender.mStdErr;
+import static burp.utils.Constants.*;
 
 /**
  * Class to construct the front-end source code from the passed JS map files
@@ -17,46 +34,199 @@ import static burp.BurpExtender.mStdErr;
 public class SourceMapper {
 
     private static final IExtensionHelpers helpers = BurpExtender.getHelpers();
+    // Readers are immutable and thread-safe, so one instance is shared by all scan threads
+    private static final ObjectReader MAP_FILE_READER = new ObjectMapper().reader();
+    private static final int LARGEST_SOURCES_TO_REPORT = 5;
 
     private final IHttpRequestResponse httpRequestResponse;
-    private final String jsonMapFile; // json string that potentially contains JS map file
     private final Path outputDirPath; // where we are going to store the source files
+    private final String generatedScriptURL;
+    private final Path archivePath; // set in ZIP output mode (one archive per map)
+
+    // Per-map statistics, reported once all the source files were saved (updated by the file writer thread
+    // as each write succeeds, guarded by "this")
+    private int savedFilesCount = 0;
+    private long savedBytesCount = 0;
+    private int handedOffFilesCount = 0; // only accessed by the parsing thread
+    private final PriorityQueue<SavedSource> largestSources = new PriorityQueue<>(Comparator.comparingLong(SavedSource::getSize));
 
     /**
      * @param httpRequestResponse The HTTP request/response that should be included in Burp's scan alert
-     * @param jsonMapFile         A json string that potentially contains JS map files
+     * @param jsonMapFile         A json stream that potentially contains JS map files
      * @param outputDirPath       The output directory where we store the constructed source code
+     * @param generatedScriptURL  The URL of the (minified) script the map belongs to; its "mappings" are indexed
+     *                            under this URL, so findings in the script can be annotated with their original location
      */
-    public SourceMapper(IHttpRequestResponse httpRequestResponse, String jsonMapFile, Path outputDirPath) {
+    public SourceMapper(IHttpRequestResponse httpRequestResponse, InputStream jsonMapFile, Path outputDirPath, URL generatedScriptURL) {
         this.httpRequestResponse = httpRequestResponse;
-        this.jsonMapFile = jsonMapFile;
         this.outputDirPath = outputDirPath;
-        parseMapFile();
+        this.generatedScriptURL = Utilities.getURLPrefix(generatedScriptURL);
+        this.archivePath = BurpExtender.getExtensionConfig().isArchiveReconstructedSources()
+                ? FileUtils.getArchivePath(outputDirPath, Instant.now().toEpochMilli())
+                : null;
+        parseMapFile(jsonMapFile);
     }
 
-    // Function 1 - parse Map Files
-    public void parseMapFile() {
-        ObjectMapper objectMapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        try {
-            JSMapFile mapFile = objectMapper.readValue(jsonMapFile, JSMapFile.class);
-            for (int i = 0; i <= mapFile.getSources().length - 1; i++) {
-                if (FileUtils.saveFile(
-                        mapFile.getSources()[i]
-                                .replaceAll("\\?.*", "") // remove app.vue?d123 .. make it app.vue
-                                .replaceAll("[?%*|:\"<>~]", ""),
-                        helpers.stringToBytes(mapFile.getSourcesContent()[i]),
-                        outputDirPath
-                )) {
-                    sendJSMapperIssue();
+    /*
+     * Function 1 - parse Map Files
+     * The map is streamed: "sources" and "sourcesContent" are walked in lockstep and each source file is saved
+     * as soon as its content is read, so only one source file is held in memory at a time.
+     * "mappings" is decoded straight from the parser's text buffer into a SourceMapIndex.
+     */
+    private void parseMapFile(InputStream jsonMapFile) {
+        try (JsonParser parser = MAP_FILE_READER.createParser(jsonMapFile)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            List<String> sources = null;
+            SourceMapIndex sourceMapIndex = null;
+            List<String> pendingContents = null; // only used if "sourcesContent" comes before "sources"
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("sources".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    sources = readStringArray(parser);
+                    if (pendingContents != null) {
+                        for (int i = 0; i < pendingContents.size() && i < sources.size(); i++) {
+                            saveSource(sources.get(i), pendingContents.get(i));
+                        }
+                        pendingContents = null;
+                    }
+                } else if ("mappings".equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                    try {
+                        sourceMapIndex = SourceMapIndex.decode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } catch (IllegalArgumentException e) {
+                        mStdErr.println("[-] Invalid source map mappings: " + generatedScriptURL);
+                    }
+                } else if ("sourcesContent".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    if (sources == null) {
+                        pendingContents = readStringArray(parser);
+                        continue;
+                    }
+                    int i = 0;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.VALUE_STRING && i < sources.size()) {
+                            saveSource(sources.get(i), parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                        i++;
+                    }
+                } else {
+                    parser.skipChildren();
                 }
             }
+            if (sourceMapIndex != null && sources != null) {
+                sourceMapIndex.setSources(sources);
+                BurpExtender.getSourceMapRegistry().put(generatedScriptURL, sourceMapIndex);
+            }
         } catch (Exception e) {
             mStdErr.println("[-] Error processing the file - parseMapFile Exception.");
         }
+
+        // Report the issue once per map file (with whatever was reconstructed)
+        if (handedOffFilesCount > 0) {
+            if (archivePath != null) {
+                AsyncFileWriter.getInstance().closeArchive(archivePath);
+            }
+            // Reported off the writer thread, which must keep writing meanwhile
+            AsyncFileWriter.getInstance().flush().thenRunAsync(this::sendJSMapperIssueIfSaved);
+        } else {
+            sendJSMapperIssueIfSaved();
+        }
+    }
+
+    private void saveSource(String source, String sourceContent) {
+        if (source == null || sourceContent == null) {
+            return;
+        }
+        byte[] sourceBytes = sourceContent.getBytes(StandardCharsets.UTF_8);
+        if (BurpExtender.getExtensionConfig().isScanReconstructedSources()) {
+            scanSource(source, sourceBytes);
+        }
+        if (BurpExtender.getExtensionConfig().isSaveReconstructedSources()) {
+            // Handed off to the file writer (the issue is sent once the queued files were written)
+            String sourcePath = source
+                    .replaceAll("\\?.*", "") // remove app.vue?d123 .. make it app.vue
+                    .replaceAll("[?%*|:\"<>~]", "");
+            CompletableFuture<Boolean> isSaved = archivePath != null
+                    ? AsyncFileWriter.getInstance().saveToArchive(sourcePath, sourceBytes, archivePath)
+                    : FileUtils.saveFile(sourcePath, sourceBytes, outputDirPath);
+            handedOffFilesCount++;
+            // Only the files actually written are counted
+            isSaved.thenAccept(saved -> {
+                if (saved) {
+                    countSavedSource(source, sourceBytes.length);
+                }
+            });
+        } else {
+            countSavedSource(source, sourceBytes.length);
+        }
     }
 
-    private void sendJSMapperIssue() {
+    private synchronized void countSavedSource(String source, long size) {
+        savedFilesCount++;
+        savedBytesCount += size;
+        // Only keep track of the top N largest sources
+        largestSources.add(new SavedSource(source, size));
+        if (largestSources.size() > LARGEST_SOURCES_TO_REPORT) {
+            largestSources.poll();
+        }
+    }
+
+    /*
+     * Passes the reconstructed source (in memory) to the passive scanners, which run in parallel on the scans executor.
+     * Findings are reported on the map URL, with the original source path as "jsminer-source" query parameter.
+     */
+    private void scanSource(String source, byte[] sourceBytes) {
+        try {
+            IHttpRequestResponse reconstructedSource = new ReconstructedSource(
+                    helpers.analyzeRequest(httpRequestResponse).getUrl(),
+                    httpRequestResponse.getHttpService(),
+                    source,
+                    sourceBytes);
+            new ScannerBuilder.Builder(new IHttpRequestResponse[]{reconstructedSource})
+                    .inMemory()
+                    .scanSecrets()
+                    .scanDependencyConfusion()
+                    .scanCloudURLs()
+                    .scanSubDomains()
+                    .endpointsFinder()
+                    .build()
+                    .runScans();
+        } catch (MalformedURLException | UnsupportedEncodingException e) {
+            mStdErr.println("[-] The reconstructed source could not be scanned: " + source);
+        }
+    }
+
+    // Reads an array of strings (null entries are kept to preserve the indexes)
+    private static List<String> readStringArray(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                values.add(parser.getText());
+            } else {
+                parser.skipChildren();
+                values.add(null);
+            }
+        }
+        return values;
+    }
+
+    private synchronized void sendJSMapperIssueIfSaved() {
+        if (savedFilesCount == 0) {
+            return;
+        }
+        List<SavedSource> largestSourcesList = new ArrayList<>(largestSources);
+        largestSourcesList.sort(Comparator.comparingLong(SavedSource::getSize).reversed());
+        StringBuilder largestSourcesSB = new StringBuilder();
+        for (SavedSource savedSource : largestSourcesList) {
+            largestSourcesSB.append(HTML_LIST_BULLET_OPEN)
+                    .append(savedSource.getPath().replace("<", "&lt;").replace(">", "&gt;"))
+                    .append(" (").append(formatSize(savedSource.getSize())).append(")")
+                    .append(HTML_LIST_BULLET_CLOSED);
+        }
+
         IScanIssue scanIssue = null;
         try {
             scanIssue = new CustomScanIssue(
@@ -66,8 +236,13 @@ public class SourceMapper {
                     "[JS Miner] JavaScript Source Mapper",
                     "This issue was generated by \"" + BurpExtender.EXTENSION_NAME + "\" Burp extension.<br><br>" +
                             "It was possible to retrieve JavaScript source map files of the target host." +
-                            "The retrieved (front-end) source code is available (for manual review) in the following location:<br><br>"
-                            + "<b>" + outputDirPath + "</b>",
+                            (BurpExtender.getExtensionConfig().isSaveReconstructedSources()
+                                    ? "The retrieved (front-end) source code is available (for manual review) in the following location:<br><br>"
+                                    + "<b>" + (archivePath != null ? archivePath : outputDirPath) + "</b><br><br>"
+                                    : "The retrieved (front-end) source code was scanned in memory (saving to disk is disabled).<br><br>")
+                            + "Reconstructed files: <b>" + savedFilesCount + "</b> (" + formatSize(savedBytesCount) + ")<br><br>"
+                            + "Largest sources:"
+                            + HTML_LIST_OPEN + largestSourcesSB + HTML_LIST_CLOSED,
                     null,
                     "Information",
                     "Certain");
@@ -76,4 +251,31 @@ public class SourceMapper {
         }
         Utilities.reportIssueIfNotDuplicate(scanIssue, httpRequestResponse);
     }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static class SavedSource {
+        private final String path;
+        private final long size;
+
+        SavedSource(String path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        long getSize() {
+            return size;
+        }
+    }
 }
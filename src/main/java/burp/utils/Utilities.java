@@ -11,14 +11,11 @@ import java.nio.file.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import com.google.re2j.Matcher;
-import com.google.re2j.Pattern;
 
 import static burp.BurpExtender.*;
 import static burp.utils.Constants.*;
 
 public final class Utilities {
-    private static final Pattern FILE_NAME_REGEX = Pattern.compile("(.*)\\.(.*)");
 
     private Utilities() {
     }
@@ -155,6 +152,8 @@ public final class Utilities {
                         HTML_LIST_OPEN +
                         issueHighlight+
                         HTML_LIST_CLOSED +
+                        getOriginalSourceLocations(baseRequestResponse, responseMarkers) +
+                        getReconstructedSourceAttribution(baseRequestResponse) +
                         "The identified matches should be highlighted in the HTTP response.<br><br>" +
                         "<br>",
                 null,
@@ -165,6 +164,70 @@ public final class Utilities {
 
     }
 
+    /*
+     * When the source map of the script was retrieved, lists the original source location of the highlighted matches.
+     * Generated columns are counted in bytes, which matches the map's UTF-16 columns for (ASCII) minified bundles.
+     */
+    private static String getOriginalSourceLocations(IHttpRequestResponse baseRequestResponse, List<int[]> responseMarkers) {
+        if (responseMarkers == null || responseMarkers.isEmpty()) {
+            return "";
+        }
+        SourceMapIndex sourceMapIndex = BurpExtender.getSourceMapRegistry().get(getURLPrefix(baseRequestResponse));
+        if (sourceMapIndex == null) {
+            return "";
+        }
+
+        byte[] response = baseRequestResponse.getResponse();
+        int bodyOffset = helpers.analyzeResponse(response).getBodyOffset();
+        int[] markerStarts = new int[responseMarkers.size()];
+        for (int i = 0; i < markerStarts.length; i++) {
+            markerStarts[i] = responseMarkers.get(i)[0];
+        }
+        Arrays.sort(markerStarts);
+
+        // Single pass over the body to turn the (sorted) offsets into generated line / column
+        Set<String> locations = new LinkedHashSet<>();
+        int line = 0;
+        int lineStart = bodyOffset;
+        int position = bodyOffset;
+        for (int markerStart : markerStarts) {
+            if (markerStart < bodyOffset || markerStart > response.length) {
+                continue;
+            }
+            for (; position < markerStart; position++) {
+                if (response[position] == '\n') {
+                    line++;
+                    lineStart = position + 1;
+                }
+            }
+            SourceMapIndex.OriginalLocation originalLocation = sourceMapIndex.lookup(line, markerStart - lineStart);
+            if (originalLocation != null) {
+                locations.add(originalLocation.toString());
+            }
+        }
+        if (locations.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder locationsSB = new StringBuilder();
+        for (String location : locations) {
+            locationsSB.append(HTML_LIST_BULLET_OPEN)
+                    .append(location.replace("<", "&lt;").replace(">", "&gt;"))
+                    .append(HTML_LIST_BULLET_CLOSED);
+        }
+        return "Original source locations (from the source map):" + HTML_LIST_OPEN + locationsSB + HTML_LIST_CLOSED;
+    }
+
+    private static String getReconstructedSourceAttribution(IHttpRequestResponse baseRequestResponse) {
+        if (!(baseRequestResponse instanceof ReconstructedSource)) {
+            return "";
+        }
+        ReconstructedSource reconstructedSource = (ReconstructedSource) baseRequestResponse;
+        return "Found in the reconstructed source <b>"
+                + reconstructedSource.getSourcePath().replace("<", "&lt;").replace(">", "&gt;")
+                + "</b> of the source map: " + reconstructedSource.getMapURL() + "<br><br>";
+    }
+
     public static void reportIssueIfNotDuplicate(IScanIssue iScanIssue, IHttpRequestResponse baseRequestResponse) {
         synchronized (Utilities.class) {
             if (isNewIssue(iScanIssue, helpers.analyzeRequest(baseRequestResponse).getUrl())) {
@@ -197,14 +260,11 @@ public final class Utilities {
         }
     }
 
+    /**
+     * Get root Domain (e.g.: example.com instead of sub.example.com, example.co.uk instead of sub.example.co.uk)
+     */
     public static String getRootDomain(String requestDomain) {
-        // Get root Domain (e.g.: example.com instead of sub.example.com)
-        Pattern rootDomainRegex = Pattern.compile("[a-z0-9]+.[a-z0-9]+$", Pattern.CASE_INSENSITIVE);
-        Matcher matcherRootDomain = rootDomainRegex.matcher(requestDomain);
-        if (matcherRootDomain.find() && BurpExtender.isLoaded()) {
-            return matcherRootDomain.group();
-        }
-        return null;
+        return PublicSuffixList.getInstance().getRegistrableDomain(requestDomain);
     }
 
     /**
@@ -227,6 +287,23 @@ public final class Utilities {
         return null;
     }
 
+    /**
+     * Get the page URL from the "Referer" header (the page that loaded a static file)
+     */
+    public static URL getRefererURL(IHttpRequestResponse baseRequestResponse) {
+        List<String> requestHeadersList = helpers.analyzeRequest(baseRequestResponse).getHeaders();
+        for (String header : requestHeadersList) {
+            if (header.regionMatches(true, 0, "Referer:", 0, "Referer:".length())) {
+                try {
+                    return new URL(header.substring("Referer:".length()).trim());
+                } catch (MalformedURLException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Make sure the found subdomain does not match (www.'request domain') or request domain or root domain
      */
@@ -290,39 +367,6 @@ public final class Utilities {
         return matches;
     }
 
-    public static Path handleDuplicateFile(Path originalFilePath) {
-        if (Files.exists(originalFilePath)) {
-            Matcher matcherFileName = FILE_NAME_REGEX.matcher(originalFilePath.toString());
-            if (
-                    matcherFileName.find()
-                            && !matcherFileName.group(1).isEmpty()
-                            && !matcherFileName.group(2).isEmpty()
-            ) {
-                String fileName = matcherFileName.group(1);
-                String fileExtension = matcherFileName.group(2);
-                return findValidName(originalFilePath, fileName, fileExtension);
-            } else {
-                return Paths.get(originalFilePath.getParent().toString())
-                        .resolve(originalFilePath + "_copy");
-            }
-        }
-        return originalFilePath;
-    }
-
-    private static Path findValidName(Path originalFilePath, String fileName, String fileExtension) {
-        // To maintain performance, we will only handle 20 duplicate file names
-        for (int i = 1; i < 20; i++) {
-            if (!Files.exists(
-                    Paths.get(originalFilePath.getParent().toString()) // get parent directory
-                            .resolve(fileName + "_" + i + "." + fileExtension) // append suffix
-            )) {
-                return Paths.get(originalFilePath.getParent().toString()) // get parent directory
-                        .resolve(fileName + "_" + i + "." + fileExtension); // append suffix
-            }
-        }
-        return null;
-    }
-
     public static void createDirectoriesIfNotExist(Path directoryPath) {
         if (!Files.exists(directoryPath)) {
             try {
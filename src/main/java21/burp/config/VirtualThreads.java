@@ -0,0 +1,22 @@
+package burp.config;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads of the I/O-bound scanners pool (Java 21+ runtimes: virtual threads).
+ */
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * @return A factory of virtual threads named "threadNamePrefix1", "threadNamePrefix2"...
+     */
+    static ThreadFactory newThreadFactory(String threadNamePrefix) {
+        return Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+    }
+}